@@ -49,6 +49,18 @@ public class Action {
 		this.numTroops = numTroops;
 	}
 	
+	/**
+	 * Reset all values of the action, so it can be reused by the {@link ActionParser}.
+	 */
+	Action set(Type type, int sourceId, int targetId, int numTroops) {
+		this.type = type;
+		this.sourceId = sourceId;
+		this.targetId = targetId;
+		this.numTroops = numTroops;
+		this.owner = null;
+		return this;
+	}
+	
 	public Type getType() {
 		return type;
 	}
@@ -0,0 +1,187 @@
+package com.codingame.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parses the output of a player into actions in a single pass over the characters, without splitting the output into strings.
+ * 
+ * The parsed actions are taken from a pool that is reused in every turn, so parsing a valid output doesn't create any objects once
+ * the pool has grown to the number of actions a player uses. Therefore the actions (and the returned list) are only valid until
+ * the next output is parsed.
+ * 
+ * The format and the error messages are the same as when the output is split into actions (by ';') and parts (by ' '): the actions
+ * are trimmed, empty actions are ignored and additional parts of an action are ignored.
+ */
+public class ActionParser {
+	
+	private static final int MAX_PARTS = 4; // the type and up to three numbers (MOVE source target troops)
+	
+	private final List<Action> actions = new ArrayList<>();
+	private final List<Action> actionPool = new ArrayList<>();
+	
+	// the start and end index of the parts of the current action in the output
+	private final int[] partStarts = new int[MAX_PARTS];
+	private final int[] partEnds = new int[MAX_PARTS];
+	
+	/**
+	 * Parse the output of a player.
+	 * 
+	 * @return The actions of the player (the list and the actions are reused when the next output is parsed)
+	 * 
+	 * @throws InvalidActionException
+	 *         If no action was given or an action has an invalid type or missing parts
+	 * 
+	 * @throws NumberFormatException
+	 *         If a field id or a number of troops is not a number
+	 */
+	public List<Action> parse(String output) throws NumberFormatException, InvalidActionException {
+		actions.clear();
+		
+		int length = output.length();
+		int actionStart = 0;
+		while (actionStart <= length) {
+			int actionEnd = output.indexOf(';', actionStart);
+			if (actionEnd == -1) {
+				actionEnd = length;
+			}
+			
+			// trim the action (like String.trim)
+			int start = actionStart;
+			int end = actionEnd;
+			while (start < end && output.charAt(start) <= ' ') {
+				start++;
+			}
+			while (end > start && output.charAt(end - 1) <= ' ') {
+				end--;
+			}
+			
+			if (start < end) {
+				actions.add(parseAction(output, start, end));
+			}
+			
+			actionStart = actionEnd + 1;
+		}
+		
+		if (actions.isEmpty()) {
+			throw new InvalidActionException("No action was given");
+		}
+		
+		return actions;
+	}
+	
+	private Action parseAction(String output, int start, int end) throws NumberFormatException, InvalidActionException {
+		int numParts = splitParts(output, start, end);
+		
+		if (isPart(output, 0, Action.Type.RANDOM)) {
+			return nextAction(Action.Type.RANDOM, Action.NO_SELECTION, Action.NO_SELECTION, 0);
+		}
+		else if (isPart(output, 0, Action.Type.WAIT)) {
+			return nextAction(Action.Type.WAIT, Action.NO_SELECTION, Action.NO_SELECTION, 0);
+		}
+		else if (numParts < 2) {
+			throw new InvalidActionException("Missing field id in output: " + output.substring(start, end));
+		}
+		
+		if (isPart(output, 0, Action.Type.PICK)) {
+			return nextAction(Action.Type.PICK, Action.NO_SELECTION, parseInt(output, 1), 0);
+		}
+		else if (isPart(output, 0, Action.Type.DEPLOY)) {
+			if (numParts < 3) {
+				throw new InvalidActionException("Missing number of troops for action: " + Action.Type.DEPLOY);
+			}
+			
+			int targetId = parseInt(output, 1);
+			int numTroops = parseInt(output, 2);
+			return nextAction(Action.Type.DEPLOY, Action.NO_SELECTION, targetId, numTroops);
+		}
+		else if (isPart(output, 0, Action.Type.MOVE)) {
+			if (numParts < 3) {
+				throw new InvalidActionException("Missing target id for action: " + Action.Type.MOVE);
+			}
+			
+			if (numParts < 4) {
+				throw new InvalidActionException("Missing number of troops for action: " + Action.Type.MOVE);
+			}
+			
+			int sourceId = parseInt(output, 1);
+			int targetId = parseInt(output, 2);
+			int numTroops = parseInt(output, 3);
+			return nextAction(Action.Type.MOVE, sourceId, targetId, numTroops);
+		}
+		else {
+			throw new InvalidActionException("Invalid action type: " + output.substring(partStarts[0], partEnds[0]));
+		}
+	}
+	
+	/**
+	 * Find the parts of an action, that are separated by single spaces (two spaces lead to an empty part, like in String.split).
+	 * 
+	 * @return The number of parts (only the bounds of the first MAX_PARTS parts are stored)
+	 */
+	private int splitParts(String output, int start, int end) {
+		int numParts = 0;
+		int partStart = start;
+		for (int i = start; i <= end; i++) {
+			if (i == end || output.charAt(i) == ' ') {
+				if (numParts < MAX_PARTS) {
+					partStarts[numParts] = partStart;
+					partEnds[numParts] = i;
+				}
+				numParts++;
+				partStart = i + 1;
+			}
+		}
+		return numParts;
+	}
+	
+	private boolean isPart(String output, int part, Action.Type type) {
+		String name = type.name();
+		return partEnds[part] - partStarts[part] == name.length() && output.regionMatches(partStarts[part], name, 0, name.length());
+	}
+	
+	/**
+	 * Parse a part as decimal integer. Only parts that are not simple numbers (or that overflow) are passed to Integer.parseInt, so
+	 * the accepted numbers and the exception messages are the same.
+	 */
+	private int parseInt(String output, int part) throws NumberFormatException {
+		int start = partStarts[part];
+		int end = partEnds[part];
+		
+		int i = start;
+		boolean negative = false;
+		if (i < end && (output.charAt(i) == '-' || output.charAt(i) == '+')) {
+			negative = output.charAt(i) == '-';
+			i++;
+		}
+		
+		if (i == end || end - i > 9) {
+			// empty, only a sign or possibly an overflow
+			return Integer.parseInt(output.substring(start, end));
+		}
+		
+		int value = 0;
+		for (; i < end; i++) {
+			char c = output.charAt(i);
+			if (c < '0' || c > '9') {
+				return Integer.parseInt(output.substring(start, end));
+			}
+			value = value * 10 + (c - '0');
+		}
+		
+		return negative ? -value : value;
+	}
+	
+	private Action nextAction(Action.Type type, int sourceId, int targetId, int numTroops) {
+		Action action;
+		if (actions.size() < actionPool.size()) {
+			action = actionPool.get(actions.size());
+			action.set(type, sourceId, targetId, numTroops);
+		}
+		else {
+			action = new Action(type, sourceId, targetId, numTroops);
+			actionPool.add(action);
+		}
+		return action;
+	}
+}
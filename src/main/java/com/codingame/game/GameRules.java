@@ -0,0 +1,251 @@
+package com.codingame.game;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.codingame.game.Action.Type;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.TurnType;
+
+/**
+ * The rules of a game turn (validation and execution of the actions and the change of the turn type), that are shared by the
+ * {@link Referee} and the in-process simulation of games.
+ */
+public class GameRules {
+	
+	private GameRules() {}
+	
+	/**
+	 * Check whether the actions of a player are valid in the current state of the game.
+	 * 
+	 * @throws InvalidActionException
+	 *         If any of the actions (or the combination of the actions) is not valid
+	 */
+	public static void validateActions(List<Action> actions, Owner player, GameMap map, TurnType turnType, League league, boolean firstDeployment)
+			throws InvalidActionException {
+		Optional<Field> pickedField;
+		Map<Integer, List<Integer>> movementTargets = new HashMap<>();
+		int[] sumOfTroopsMovedOutOfField = new int[map.fields.size()];
+		
+		// check all actions by themselves
+		
+		for (Action action : actions) {
+			switch (action.getType()) {
+				case PICK:
+					if (turnType != TurnType.CHOOSE_STARTING_FIELDS) {
+						throw createInvalidActionTypeException(Type.PICK, TurnType.CHOOSE_STARTING_FIELDS);
+					}
+					if (!league.pickCommandEnabled) {
+						throw new InvalidActionException("The command " + Type.PICK + " is not enabled in this league. Please use " + //
+								Type.RANDOM + " instead.");
+					}
+					pickedField = map.getFieldById(action.getTargetId());
+					if (!pickedField.isPresent()) {
+						throw new InvalidActionException("A field with the id " + action.getTargetId() + " does not exist.");
+					}
+					else if (pickedField.get().getOwner() != Owner.NEUTRAL) {
+						throw new InvalidActionException("The field with the id " + action.getTargetId() + " was already picked.");
+					}
+					
+					if (actions.size() > 1) {
+						throw new InvalidActionException("You can only " + Type.PICK + " one field per turn.");
+					}
+					break;
+				case DEPLOY:
+					if (turnType != TurnType.DEPLOY_TROOPS) {
+						throw createInvalidActionTypeException(Type.DEPLOY, TurnType.DEPLOY_TROOPS);
+					}
+					pickedField = map.getFieldById(action.getTargetId());
+					if (!pickedField.isPresent()) {
+						throw new InvalidActionException("A field with the id " + action.getTargetId() + " does not exist.");
+					}
+					else if (pickedField.get().getOwner() != player) {
+						throw new InvalidActionException("Cannot " + Type.DEPLOY + " to field " + action.getTargetId() + //
+								". You don't controll this field.");
+					}
+					else if (action.getNumTroops() <= 0) {
+						throw new InvalidActionException("Cannot " + Type.DEPLOY + " " + action.getNumTroops() + " troops. You have to " + //
+								Type.DEPLOY + " at least 1 troop.");
+					}
+					break;
+				case MOVE:
+					if (turnType != TurnType.MOVE_TROOPS) {
+						throw createInvalidActionTypeException(Type.MOVE, TurnType.MOVE_TROOPS);
+					}
+					Optional<Field> sourceField = pickedField = map.getFieldById(action.getSourceId());
+					Optional<Field> targetField = pickedField = map.getFieldById(action.getTargetId());
+					if (!sourceField.isPresent()) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " from field " + action.getSourceId() + //
+								". A field with the id " + action.getSourceId() + " does not exist.");
+					}
+					if (!targetField.isPresent()) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " to field " + action.getTargetId() + //
+								". A field with the id " + action.getTargetId() + " does not exist.");
+					}
+					if (sourceField.get().getOwner() != player) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " from field " + action.getSourceId() + //
+								". You don't controll this field.");
+					}
+					if (action.getSourceId() == action.getTargetId()) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " from field " + action.getSourceId() + //
+								" to field " + action.getTargetId() + ". A move must be to a different field.");
+					}
+					if (!map.isFieldsConnected(action.getSourceId(), action.getTargetId())) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " from field " + action.getSourceId() + //
+								" to field " + action.getTargetId() + ". The fields are not connected.");
+					}
+					if (action.getNumTroops() <= 0) {
+						throw new InvalidActionException("Cannot execute a " + Type.MOVE + " command with no troops. " + //
+								"You must move at least 1 troop.");
+					}
+					
+					sumOfTroopsMovedOutOfField[action.getSourceId()] += action.getNumTroops();
+					if (sumOfTroopsMovedOutOfField[action.getSourceId()] > sourceField.get().getTroops()) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " a total number of " + //
+								sumOfTroopsMovedOutOfField[action.getSourceId()] + " (or more) troops from field " + action.getSourceId() + //
+								". The field only contains " + sourceField.get().getTroops() + " troops.");
+					}
+					
+					List<Integer> targetsFromSourceField = movementTargets.computeIfAbsent(action.getSourceId(), i -> new ArrayList<>());
+					if (targetsFromSourceField.contains(action.getTargetId())) {
+						throw new InvalidActionException("Cannot " + Type.MOVE + " from field " + action.getSourceId() + //
+								" to field " + action.getTargetId() + " with multiple commands. " + //
+								"Only one move with the same source and target is allowed.");
+					}
+					targetsFromSourceField.add(action.getTargetId());
+					break;
+				case RANDOM:
+					if (turnType != TurnType.CHOOSE_STARTING_FIELDS) {
+						throw createInvalidActionTypeException(Action.Type.RANDOM, TurnType.CHOOSE_STARTING_FIELDS);
+					}
+					break;
+				case WAIT:
+					// always valid
+					break;
+				default:
+					throw new IllegalStateException("Unknown action type: " + action.getType());
+			}
+		}
+		
+		// all actions are valid by themselves - check the combination
+		
+		switch (turnType) {
+			case CHOOSE_STARTING_FIELDS:
+				// do nothing here
+				break;
+			case DEPLOY_TROOPS:
+				int totalDeployedTroops = actions.stream().filter(action -> action.getType() == Type.DEPLOY).mapToInt(Action::getNumTroops).sum();
+				int allowedDeployments = map.calculateDeployableTroops(player, firstDeployment);
+				if (totalDeployedTroops > allowedDeployments) {
+					throw new InvalidActionException("Cannot " + Type.DEPLOY + " " + totalDeployedTroops + //
+							" troops in total. You can only " + Type.DEPLOY + " " + allowedDeployments + " troops in this turn.");
+				}
+				break;
+			case MOVE_TROOPS:
+				break;
+			default:
+				throw new IllegalStateException("Unknown turn type: " + turnType);
+		}
+		
+		if (actions.stream().anyMatch(action -> action.getType() == Type.WAIT) && actions.size() > 1) {
+			throw new InvalidActionException(Type.WAIT + " commands cannot be mixed with other commands.");
+		}
+	}
+	
+	private static InvalidActionException createInvalidActionTypeException(Action.Type actionType, TurnType expectedTurn) {
+		return new InvalidActionException("The action " + actionType + " cannot be used in this turn, but only in turns of type '" + expectedTurn + "'");
+	}
+	
+	/**
+	 * Execute the (validated) actions of both players. Every two actions of the players are executed simultaneously.
+	 */
+	public static void executeActions(List<Action> actions1, List<Action> actions2, GameMap map, TurnType turnType, boolean firstDeployment) {
+		if (turnType == TurnType.DEPLOY_TROOPS) {
+			// calculate how many troops are not deployed in this turn, so they can be deployed in the next turn
+			
+			int deployedTroops1 = actions1.stream().filter(action -> action.getType() == Type.DEPLOY).mapToInt(Action::getNumTroops).sum();
+			int deployedTroops2 = actions2.stream().filter(action -> action.getType() == Type.DEPLOY).mapToInt(Action::getNumTroops).sum();
+			
+			int sparedTroops1 = map.calculateDeployableTroops(Owner.PLAYER_1, firstDeployment) - deployedTroops1;
+			int sparedTroops2 = map.calculateDeployableTroops(Owner.PLAYER_2, firstDeployment) - deployedTroops2;
+			
+			map.setSparedDeployingTroops(sparedTroops1, Owner.PLAYER_1);
+			map.setSparedDeployingTroops(sparedTroops2, Owner.PLAYER_2);
+		}
+		
+		int minMoves = Math.min(actions1.size(), actions2.size());
+		
+		// every two moves of the players are executed simultaneously (in the order of the list) 
+		for (int i = 0; i < minMoves; i++) {
+			map.executeSimultaneously(actions1.get(i), actions2.get(i));
+		}
+		
+		// if one player has committed more moves than the other, there is no need for a simultaneous execution
+		for (int i = minMoves; i < actions1.size(); i++) {
+			map.executeIndependent(actions1.get(i));
+		}
+		for (int i = minMoves; i < actions2.size(); i++) {
+			map.executeIndependent(actions2.get(i));
+		}
+	}
+	
+	/**
+	 * Replace WAIT during CHOOSE_STARTING_FIELDS with RANDOM and add the owner to the actions.
+	 */
+	public static void prepareActions(List<Action> actions, Owner owner, TurnType turnType) {
+		if (turnType == TurnType.CHOOSE_STARTING_FIELDS) {
+			actions.replaceAll(action -> action.getType() == Type.WAIT ? new Action(Type.RANDOM) : action);
+		}
+		
+		actions.forEach(action -> action.setOwner(owner));
+	}
+	
+	/**
+	 * Check whether a player takes a turn (in CHOOSE_STARTING_FIELDS turns only players with starting fields left take a turn).
+	 */
+	public static boolean isPlayerActive(GameMap map, TurnType turnType, Owner player) {
+		return turnType != TurnType.CHOOSE_STARTING_FIELDS || map.getStartingFieldChoice().getStartingFieldsLeft(player) > 0;
+	}
+	
+	/**
+	 * Finish the current turn (deploy neutral troops or reset the rounding losses if needed) and get the type of the next turn.
+	 */
+	public static TurnType finishTurn(GameMap map, TurnType turnType) {
+		switch (turnType) {
+			case CHOOSE_STARTING_FIELDS:
+				if (map.getStartingFieldChoice().getStartingFieldsLeft(Owner.PLAYER_1) > 0 || //
+						map.getStartingFieldChoice().getStartingFieldsLeft(Owner.PLAYER_2) > 0) {
+					// not all starting fields are chosen yet
+					return TurnType.CHOOSE_STARTING_FIELDS;
+				}
+				
+				// all starting fields are chosen 
+				
+				// all other fields are occupied by 2 neutral troops per field
+				map.deployNeutralTroops();
+				
+				// deploy troops in the next turn
+				return TurnType.DEPLOY_TROOPS;
+			case DEPLOY_TROOPS:
+				return TurnType.MOVE_TROOPS; // switch between deploying and moving troops
+			case MOVE_TROOPS:
+				map.resetRoundingLosses();
+				return TurnType.DEPLOY_TROOPS; // switch between deploying and moving troops
+			default:
+				throw new IllegalStateException("Unknown turn type: " + turnType);
+		}
+	}
+	
+	/**
+	 * The game ends (after the starting fields are chosen) if one of the players controls no fields.
+	 */
+	public static boolean isGameOver(GameMap map, TurnType turnType) {
+		return turnType != TurnType.CHOOSE_STARTING_FIELDS && //
+				(map.getNumFieldsControlledByPlayer(Owner.PLAYER_1) == 0 || map.getNumFieldsControlledByPlayer(Owner.PLAYER_2) == 0);
+	}
+}
@@ -2,16 +2,22 @@ package com.codingame.game;
 
 public enum League {
 	
-	LEAGUE_1(1, false), //
-	LEAGUE_2(2, true), //
-	LEAGUE_3(3, true); //
+	LEAGUE_1(1, false, false), //
+	LEAGUE_2(2, true, false), //
+	LEAGUE_3(3, true, false); //
 	
 	public final int level;
 	public final boolean pickCommandEnabled;
+	/**
+	 * Send only the fields that changed since the last turn input of a player (instead of all fields) in the turn input. This can be
+	 * overwritten with the game parameter {@link Referee#GAME_PARAMETER_DELTA_TURN_INPUT}.
+	 */
+	public final boolean deltaTurnInputEnabled;
 	
-	private League(int level, boolean pickCommandEnabled) {
+	private League(int level, boolean pickCommandEnabled, boolean deltaTurnInputEnabled) {
 		this.level = level;
 		this.pickCommandEnabled = pickCommandEnabled;
+		this.deltaTurnInputEnabled = deltaTurnInputEnabled;
 	}
 	
 	public static League getByLevel(int level) {
@@ -0,0 +1,244 @@
+package com.codingame.game;
+
+import java.util.Arrays;
+
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.TurnType;
+
+/**
+ * Encodes the input of a game turn for the players into a buffer that is reused in every turn.
+ * 
+ * The values that are the same for both players (the number of fields, the deployable troops and the starting fields that are
+ * left) are calculated only once per turn in {@link #prepareTurn(GameMap, TurnType, boolean)}. The frame of a player is written
+ * into a single pre-sized buffer (the numbers are appended without creating strings) and can then be read line by line, because
+ * the game engine expects every input line to be sent separately.
+ * 
+ * With delta encoding (see {@link League#deltaTurnInputEnabled}) the field lines are replaced by a line with the number of changed
+ * fields, followed by one line for every field whose owner or troops changed since the last frame of the player. The first frame
+ * of a player contains all fields. The changes are taken from the map's changed fields, so the frame doesn't depend on the size
+ * of the map. The encoder only reads the changed fields; they are reset by the owner of the map (the Referee resets them once per
+ * turn, after the turn was prepared), so other readers of the changes are not affected.
+ */
+public class TurnInputEncoder {
+	
+	private static final int CHARS_PER_HEADER = 64; // the turn type and the three lines with two numbers
+	private static final int CHARS_PER_FIELD = 12; // enough for a field id and the number of troops with up to four digits
+	
+	private static final Owner[] PLAYERS = {Owner.PLAYER_1, Owner.PLAYER_2};
+	
+	private static final int OWNER_NEUTRAL = 0;
+	private static final int OWNER_PLAYER = 1;
+	private static final int OWNER_OPPONENT = 2;
+	
+	private final boolean deltaEncoding;
+	
+	private final StringBuilder frame;
+	private int[] lineEnds;
+	private int numLines;
+	
+	// the values of the current turn, that are shared by both players (indexed by the ordinal of the owner)
+	private GameMap map;
+	private TurnType turnType;
+	private final int[] numFields = new int[Owner.values().length];
+	private final int[] deployableTroops = new int[Owner.values().length];
+	private final int[] startingFieldsLeft = new int[Owner.values().length];
+	
+	// the fields that changed since the last frame of a player (indexed by the ordinal of the player and the field id)
+	private Field[] fieldsById;
+	private boolean[][] pendingFields;
+	private int[][] pendingFieldIds;
+	private final int[] numPendingFields = new int[Owner.values().length];
+	
+	/**
+	 * @param fieldCount
+	 *        The number of fields of the map (used to pre-size the buffer)
+	 */
+	public TurnInputEncoder(int fieldCount) {
+		this(fieldCount, false);
+	}
+	
+	/**
+	 * @param fieldCount
+	 *        The number of fields of the map (used to pre-size the buffer)
+	 * 
+	 * @param deltaEncoding
+	 *        Send only the fields that changed since the last frame of the player
+	 */
+	public TurnInputEncoder(int fieldCount, boolean deltaEncoding) {
+		this.deltaEncoding = deltaEncoding;
+		frame = new StringBuilder(CHARS_PER_HEADER + fieldCount * CHARS_PER_FIELD);
+		lineEnds = new int[fieldCount + 4];
+	}
+	
+	/**
+	 * Calculate the values of the turn, that are shared by the frames of both players.
+	 */
+	public void prepareTurn(GameMap map, TurnType turnType, boolean firstDeployment) {
+		this.map = map;
+		this.turnType = turnType;
+		
+		for (Owner player : PLAYERS) {
+			numFields[player.ordinal()] = map.getNumFieldsControlledByPlayer(player);
+			deployableTroops[player.ordinal()] = map.calculateDeployableTroops(player, firstDeployment);
+			startingFieldsLeft[player.ordinal()] = map.getStartingFieldChoice().getStartingFieldsLeft(player);
+		}
+		
+		if (deltaEncoding) {
+			collectChangedFields();
+		}
+	}
+	
+	/**
+	 * Add the fields that changed since the last turn to the pending fields of both players (a player that doesn't get an input in
+	 * this turn gets the changes with the next frame). The changed fields of the map must be reset after every turn (but not by the
+	 * encoder), otherwise they are sent again.
+	 */
+	private void collectChangedFields() {
+		if (pendingFields == null) {
+			// the first frame contains all fields
+			int numFieldIds = map.fields.stream().mapToInt(field -> field.id + 1).max().orElse(0);
+			fieldsById = new Field[numFieldIds];
+			for (Field field : map.fields) {
+				fieldsById[field.id] = field;
+			}
+			pendingFields = new boolean[Owner.values().length][numFieldIds];
+			pendingFieldIds = new int[Owner.values().length][numFieldIds];
+			for (Owner player : PLAYERS) {
+				for (Field field : map.fields) {
+					addPendingField(player, field.id);
+				}
+			}
+		}
+		else {
+			for (int i = 0; i < map.getNumChangedFields(); i++) {
+				for (Owner player : PLAYERS) {
+					addPendingField(player, map.getChangedFieldId(i));
+				}
+			}
+		}
+	}
+	
+	private void addPendingField(Owner player, int fieldId) {
+		if (!pendingFields[player.ordinal()][fieldId]) {
+			pendingFields[player.ordinal()][fieldId] = true;
+			pendingFieldIds[player.ordinal()][numPendingFields[player.ordinal()]++] = fieldId;
+		}
+	}
+	
+	/**
+	 * Encode the frame of the turn for a player (replacing the previous frame).
+	 */
+	public void encode(Owner player) {
+		if (map == null) {
+			throw new IllegalStateException("The turn has to be prepared before a frame can be encoded");
+		}
+		
+		frame.setLength(0);
+		numLines = 0;
+		
+		Owner opponent = player.getOpponent();
+		
+		// first line: one string - the name of the turn type (CHOOSE_STARTING_FIELDS, DEPLOY_TROOPS or MOVE_TROOPS)
+		frame.append(turnType.name());
+		endLine();
+		
+		// next line: two integers - the number of the fields that are held by each player (your input is always first)
+		appendPair(numFields[player.ordinal()], numFields[opponent.ordinal()]);
+		
+		// next line: two integers - the number of troops that each player can deploy (your input is always first; 0 in all turn types but DEPLOY_TROOPS)
+		appendPair(deployableTroops[player.ordinal()], deployableTroops[opponent.ordinal()]);
+		
+		// next line: two integers - the number of fields for each player to choose (your input is always first; 0 in all turn types but CHOOSE_STARTING_FIELDS)
+		appendPair(startingFieldsLeft[player.ordinal()], startingFieldsLeft[opponent.ordinal()]);
+		
+		if (deltaEncoding) {
+			encodeChangedFields(player);
+		}
+		else {
+			// next NUMBER_OF_FIELDS lines: three integers - the FIELD_ID, the NUMBER_OF_TROOPS in this field, the OWNER of this field
+			//                              (1 if the field is controlled by you; 2 if it's controlled by the opponent player; 0 if it's neutral)
+			for (Field field : map.fields) {
+				appendField(field, player);
+			}
+		}
+	}
+	
+	private void encodeChangedFields(Owner player) {
+		boolean[] pending = pendingFields[player.ordinal()];
+		int[] pendingIds = pendingFieldIds[player.ordinal()];
+		int numPending = numPendingFields[player.ordinal()];
+		
+		// next line: one integer - the NUMBER_OF_CHANGED_FIELDS since your last turn
+		frame.append(numPending);
+		endLine();
+		
+		// next NUMBER_OF_CHANGED_FIELDS lines: three integers - the FIELD_ID, the NUMBER_OF_TROOPS and the OWNER (sorted by the field id)
+		Arrays.sort(pendingIds, 0, numPending);
+		for (int i = 0; i < numPending; i++) {
+			appendField(fieldsById[pendingIds[i]], player);
+			pending[pendingIds[i]] = false;
+		}
+		numPendingFields[player.ordinal()] = 0;
+	}
+	
+	private void appendField(Field field, Owner player) {
+		int owner = OWNER_NEUTRAL;
+		if (field.getOwner() == player) {
+			owner = OWNER_PLAYER;
+		}
+		else if (field.getOwner() == player.getOpponent()) {
+			owner = OWNER_OPPONENT;
+		}
+		
+		frame.append(field.id).append(' ').append(field.getTroops()).append(' ').append(owner);
+		endLine();
+	}
+	
+	private void appendPair(int value1, int value2) {
+		frame.append(value1).append(' ').append(value2);
+		endLine();
+	}
+	
+	private void endLine() {
+		if (numLines == lineEnds.length) {
+			lineEnds = Arrays.copyOf(lineEnds, 2 * numLines);
+		}
+		lineEnds[numLines++] = frame.length();
+		frame.append('\n');
+	}
+	
+	/**
+	 * The number of lines of the current frame.
+	 */
+	public int getNumLines() {
+		return numLines;
+	}
+	
+	/**
+	 * Get a line of the current frame (without a line break).
+	 */
+	public String getLine(int index) {
+		if (index < 0 || index >= numLines) {
+			throw new IndexOutOfBoundsException("The frame has no line with the index " + index);
+		}
+		return frame.substring(index == 0 ? 0 : lineEnds[index - 1] + 1, lineEnds[index]);
+	}
+	
+	/**
+	 * The current frame (all lines, separated by line breaks).
+	 */
+	public CharSequence getFrame() {
+		return frame;
+	}
+	
+	/**
+	 * Send the current frame to a player (line by line).
+	 */
+	public void sendTo(Player player) {
+		for (int i = 0; i < numLines; i++) {
+			player.sendInputLine(getLine(i));
+		}
+	}
+}
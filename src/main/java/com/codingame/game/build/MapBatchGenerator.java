@@ -0,0 +1,202 @@
+package com.codingame.game.build;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.util.Pair;
+import com.codingame.game.util.Vector2D;
+import com.codingame.game.view.View;
+
+/**
+ * Generates many maps in parallel (using all cores), e.g. to pre-generate the maps of a {@link MapLibrary} or to benchmark the map
+ * generator.
+ * 
+ * Every map is generated with it's own random instance (created from the seed of the map), so the maps don't depend on the number of
+ * threads or the execution order, and are the same as if {@link MapGenerator#generateMap(RandomUtil, int, int)} was called with a
+ * new RandomUtil(seed).
+ * 
+ * Usage: MapBatchGenerator &lt;library file&gt; &lt;first seed&gt; &lt;number of seeds&gt; [&lt;min fields&gt; &lt;max fields&gt;] [--placed]
+ * [--threads &lt;n&gt;]<br>
+ * The statistics of all maps are printed to the standard output (as csv) and the throughput is printed to the error output.
+ * 
+ * With --placed, maps for which the view placement creates positions that are not finite (NaN or infinite, which happens for large
+ * maps) are not added to the library, so the view never renders from them. Their seeds are printed to the error output.
+ */
+public class MapBatchGenerator {
+	
+	private final int numFieldsMin;
+	private final int numFieldsMax;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	private boolean placeFields;
+	
+	public MapBatchGenerator() {
+		this(MapGenerator.NUM_FIELDS_MIN, MapGenerator.NUM_FIELDS_MAX);
+	}
+	
+	public MapBatchGenerator(int numFieldsMin, int numFieldsMax) {
+		if (numFieldsMin < MapGenerator.NUM_FIELDS_LOWER_BOUND) {
+			throw new IllegalArgumentException("A map needs at least " + MapGenerator.NUM_FIELDS_LOWER_BOUND + " fields, but the minimum was " + numFieldsMin);
+		}
+		if (numFieldsMax < numFieldsMin) {
+			throw new IllegalArgumentException("The maximum number of fields must not be less than the minimum");
+		}
+		
+		this.numFieldsMin = numFieldsMin;
+		this.numFieldsMax = numFieldsMax;
+	}
+	
+	public static void main(String[] args) throws IOException {
+		List<String> arguments = new ArrayList<>(Arrays.asList(args));
+		boolean placeFields = arguments.remove("--placed");
+		int parallelism = Runtime.getRuntime().availableProcessors();
+		int threadsIndex = arguments.indexOf("--threads");
+		if (threadsIndex != -1 && threadsIndex + 1 < arguments.size()) {
+			parallelism = Integer.parseInt(arguments.get(threadsIndex + 1));
+			arguments.subList(threadsIndex, threadsIndex + 2).clear();
+		}
+		if (arguments.size() != 3 && arguments.size() != 5) {
+			System.err.println("Usage: MapBatchGenerator <library file> <first seed> <number of seeds> [<min fields> <max fields>] [--placed] [--threads <n>]");
+			System.exit(1);
+		}
+		
+		long firstSeed = Long.parseLong(arguments.get(1));
+		int numSeeds = Integer.parseInt(arguments.get(2));
+		MapBatchGenerator generator = arguments.size() == 5 //
+				? new MapBatchGenerator(Integer.parseInt(arguments.get(3)), Integer.parseInt(arguments.get(4))) //
+				: new MapBatchGenerator();
+		generator.setParallelism(parallelism);
+		generator.setPlaceFields(placeFields);
+		
+		Result result;
+		try (MapLibraryWriter writer = new MapLibraryWriter(Paths.get(arguments.get(0)))) {
+			result = generator.generate(firstSeed, numSeeds, writer);
+		}
+		
+		System.out.println(MapStatistics.CSV_HEADER);
+		for (MapStatistics statistics : result.statistics) {
+			System.out.println(statistics.toCsvLine());
+		}
+		System.err.println(String.format(Locale.ROOT, "Generated %d maps in %.3f s (%.1f maps per second, %d threads)",
+				result.statistics.size(), result.durationNanos / 1e9, result.getMapsPerSecond(), parallelism));
+		if (!result.skippedSeeds.isEmpty()) {
+			System.err.println("Skipped " + result.skippedSeeds.size() + " maps, because their placed positions are not finite: " + result.skippedSeeds);
+		}
+	}
+	
+	/**
+	 * Generate the maps for the seeds firstSeed to firstSeed + numSeeds - 1.
+	 * 
+	 * @param writer
+	 *        The writer to which the maps are added while they are generated, or null if the maps are not stored (e.g. to benchmark the
+	 *        generator)
+	 * 
+	 * @return The statistics of the maps (ordered by seed), the seeds of the maps that were not written and the duration of the
+	 *         generation
+	 */
+	public Result generate(long firstSeed, int numSeeds, MapLibraryWriter writer) {
+		MapStatistics[] statistics = new MapStatistics[numSeeds];
+		ConcurrentLinkedQueue<Long> skippedSeeds = new ConcurrentLinkedQueue<>();
+		
+		long startTime = System.nanoTime();
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			// the statistics are stored by the index of the seed, so the order doesn't depend on the execution order
+			pool.submit(() -> IntStream.range(0, numSeeds).parallel().forEach(i -> statistics[i] = generate(firstSeed + i, writer, skippedSeeds))).get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The map generation was interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("A map could not be generated", e.getCause());
+		}
+		finally {
+			pool.shutdown();
+		}
+		
+		List<Long> sortedSkippedSeeds = new ArrayList<>(skippedSeeds);
+		Collections.sort(sortedSkippedSeeds);
+		return new Result(Arrays.asList(statistics), sortedSkippedSeeds, System.nanoTime() - startTime);
+	}
+	
+	private MapStatistics generate(long seed, MapLibraryWriter writer, ConcurrentLinkedQueue<Long> skippedSeeds) {
+		Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(seed), numFieldsMin, numFieldsMax);
+		GameMap map = generatedMap.getKey();
+		
+		if (writer != null) {
+			Map<Field, Vector2D> placedPositions = placeFields ? View.placeFields(map, generatedMap.getValue()) : null;
+			if (placedPositions != null && !isFinite(placedPositions)) {
+				skippedSeeds.add(seed);
+				return MapStatistics.of(seed, map);
+			}
+			try {
+				writer.add(seed, map, generatedMap.getValue(), placedPositions);
+			}
+			catch (IOException e) {
+				throw new UncheckedIOException("The map for the seed " + seed + " could not be written", e);
+			}
+		}
+		
+		return MapStatistics.of(seed, map);
+	}
+	
+	private static boolean isFinite(Map<Field, Vector2D> positions) {
+		return positions.values().stream().allMatch(position -> Double.isFinite(position.x) && Double.isFinite(position.y));
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+	
+	public boolean isPlaceFields() {
+		return placeFields;
+	}
+	
+	/**
+	 * Store the placed view positions of the fields in the library too (so the graph placement is not calculated when the map is loaded).
+	 */
+	public void setPlaceFields(boolean placeFields) {
+		this.placeFields = placeFields;
+	}
+	
+	public static class Result {
+		
+		public final List<MapStatistics> statistics;
+		/**
+		 * The seeds of the maps that were generated, but not added to the library (sorted).
+		 */
+		public final List<Long> skippedSeeds;
+		public final long durationNanos;
+		
+		public Result(List<MapStatistics> statistics, List<Long> skippedSeeds, long durationNanos) {
+			this.statistics = Collections.unmodifiableList(statistics);
+			this.skippedSeeds = Collections.unmodifiableList(skippedSeeds);
+			this.durationNanos = durationNanos;
+		}
+		
+		public double getMapsPerSecond() {
+			return durationNanos == 0 ? 0 : statistics.size() / (durationNanos / 1e9);
+		}
+	}
+}
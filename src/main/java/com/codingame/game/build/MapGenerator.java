@@ -1,6 +1,7 @@
 package com.codingame.game.build;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -15,7 +16,11 @@ import java.util.stream.IntStream;
 import com.codingame.game.core.Field;
 import com.codingame.game.core.GameMap;
 import com.codingame.game.core.Region;
+import com.codingame.game.core.StartingFieldChoice;
+import com.codingame.game.util.BridgeFinder;
 import com.codingame.game.util.Pair;
+import com.codingame.game.util.SpatialGrid;
+import com.codingame.game.util.UnionFind;
 import com.codingame.game.util.Vector2D;
 import com.codingame.game.view.PositionedField;
 import com.codingame.game.view.View;
@@ -30,8 +35,23 @@ public class MapGenerator {
 	private static final float FIELD_WIDTH = View.GAME_FIELD_WIDTH - 100; // -100 so the fields are not pushed to the edge completely
 	private static final float FIELD_HEIGHT = View.GAME_FIELD_HEIGHT - 100; // -100 so the fields are not pushed to the edge completely
 	
-	private static final int NUM_FIELDS_MIN = 16;
-	private static final int NUM_FIELDS_MAX = 30;
+	public static final int NUM_FIELDS_MIN = 16;
+	public static final int NUM_FIELDS_MAX = 30;
+	
+	/**
+	 * The smallest number of fields that is needed, so that enough starting fields can be chosen.
+	 */
+	public static final int NUM_FIELDS_LOWER_BOUND = 4 * StartingFieldChoice.MIN_STARTING_FIELDS;
+	
+	/**
+	 * Maps with at least this number of fields are generated in the large map mode: the connections are only chosen between the
+	 * nearest fields (found with a spatial grid) and the regions are chosen as areas around random fields (instead of using the
+	 * X-Means algorithm), so the generation time grows nearly linear with the number of fields.
+	 */
+	public static final int LARGE_MAP_MIN_FIELDS = 128;
+	private static final int LARGE_MAP_NUM_NEAREST_FIELDS = 8; // the number of nearest fields that are candidates for a connection
+	private static final float LARGE_MAP_FIELDS_PER_REGION = 5;
+	private static final float LARGE_MAP_FIELDS_PER_GRID_CELL = 2;
 	
 	private static final int NUM_CONNECTIONS_PER_FIELD_MIN = 2;
 	private static final int NUM_CONNECTIONS_PER_FIELD_MAX = 3; // can be more, if other fields connect to a field after it got processed or if groups need to be connected
@@ -52,24 +72,67 @@ public class MapGenerator {
 	private static final int BONUS_TROOPS_MAX = 5;
 	
 	public static Pair<GameMap, Map<Field, Vector2D>> generateMap() {
-		return new MapGenerator().generateRandomMap();
+		return generateMap(RandomUtil.getInstance());
+	}
+	
+	/**
+	 * Generate a map using the given random instance (instead of the static instance), so multiple maps can be generated concurrently.
+	 */
+	public static Pair<GameMap, Map<Field, Vector2D>> generateMap(RandomUtil random) {
+		return new MapGenerator(random).generateRandomMap();
 	}
 	
+	/**
+	 * Generate a map with a number of fields between numFieldsMin and numFieldsMax (both inclusive), e.g. to create large maps for
+	 * stress tests. Maps with at least {@link #LARGE_MAP_MIN_FIELDS} fields are generated in the large map mode.
+	 */
+	public static Pair<GameMap, Map<Field, Vector2D>> generateMap(RandomUtil random, int numFieldsMin, int numFieldsMax) {
+		return new MapGenerator(random, numFieldsMin, numFieldsMax).generateRandomMap();
+	}
+	
+	private final int numFieldsMin;
+	private final int numFieldsMax;
+	
 	private int numFields;
 	private Map<Field, Vector2D> positions;
 	private RandomUtil random;
+	private int nextRegionId;
 	
 	private List<Field> fields;
 	private Map<Field, Set<Field>> connections;
 	private List<Region> regions;
+	private Map<Field, Region> fieldRegions;
+	
+	// only used in the large map mode
+	private SpatialGrid fieldGrid;
+	private int[][] nearestFields; // the indices of the nearest fields of every field (sorted by distance)
+	private double[][] nearestFieldDistances;
 	
 	protected MapGenerator() {
-		random = RandomUtil.getInstance();
+		this(RandomUtil.getInstance());
+	}
+	
+	protected MapGenerator(RandomUtil random) {
+		this(random, NUM_FIELDS_MIN, NUM_FIELDS_MAX);
+	}
+	
+	protected MapGenerator(RandomUtil random, int numFieldsMin, int numFieldsMax) {
+		if (numFieldsMin < NUM_FIELDS_LOWER_BOUND) {
+			throw new IllegalArgumentException("A map needs at least " + NUM_FIELDS_LOWER_BOUND + " fields, but the minimum was " + numFieldsMin);
+		}
+		if (numFieldsMax < numFieldsMin) {
+			throw new IllegalArgumentException("The maximum number of fields must not be less than the minimum");
+		}
+		
+		this.numFieldsMin = numFieldsMin;
+		this.numFieldsMax = numFieldsMax;
+		this.random = random;
 		positions = new HashMap<>();
 		
 		fields = new ArrayList<>();
 		connections = new HashMap<>();
 		regions = new ArrayList<>();
+		fieldRegions = new HashMap<>();
 	}
 	
 	//*************************************************************************
@@ -88,19 +151,31 @@ public class MapGenerator {
 	 * - 4.3. For all fields, that have to many connections (more than allowed): Try to cut connections, but keep all fields connected transitively
 	 * 5. Mirror the graph (so it's symmetric)
 	 * 6. Create connections between the fields on both sides (where the chance to be connected is proportionately to the distance between the fields)
+	 * 
+	 * In the large map mode (see {@link #LARGE_MAP_MIN_FIELDS}) the steps 3 and 4 only consider the nearest fields of every field.
 	 */
 	private Pair<GameMap, Map<Field, Vector2D>> generateRandomMap() {
 		chooseNumberOfFields();
 		initializeHalfFields();
 		positionFields();
-		chooseRegions();
 		
-		connectFields();
-		Optional<Set<Set<Field>>> dividedFieldGroups;
-		while ((dividedFieldGroups = getDividedFieldGroups()).isPresent()) {
-			connectGroups(dividedFieldGroups.get());
+		if (isLargeMap()) {
+			findNearestFields();
+			chooseRegionsAroundRandomFields();
+			connectFieldsToNearestFields();
+			connectDividedFieldsToNearestFields();
+			removeDispensableConnectionsOutsideSpanningTree();
+		}
+		else {
+			chooseRegions();
+			
+			connectFields();
+			Optional<Set<Set<Field>>> dividedFieldGroups;
+			while ((dividedFieldGroups = getDividedFieldGroups()).isPresent()) {
+				connectGroups(dividedFieldGroups.get());
+			}
+			removeDispensableConnections();
 		}
-		removeDispensableConnections();
 		
 		mirrorGraph();
 		connectSides();
@@ -109,7 +184,10 @@ public class MapGenerator {
 	}
 	
 	private void chooseNumberOfFields() {
-		numFields = random.nextInt(NUM_FIELDS_MAX - NUM_FIELDS_MIN) + NUM_FIELDS_MIN;
+		numFields = numFieldsMin;
+		if (numFieldsMax > numFieldsMin) {
+			numFields += random.nextInt(numFieldsMax - numFieldsMin);
+		}
 		
 		// ensure that the number of fields is even (so the map is symmetric)
 		if (numFields % 2 == 1) {
@@ -136,18 +214,26 @@ public class MapGenerator {
 				.map(field -> new PositionedField(field, positions.get(field))) //
 				.collect(Collectors.toList());
 		
-		// divide the cluster into half the number of regions, because it is mirrored afterwards
+		// divide the cluster into half the number of regions, because it is mirrored afterwards (the centroids are initialized with the
+		// k-means++ seeding, so the regions don't depend on the order of the fields)
 		List<Cluster<PositionedField>> clusters = ClusterAnalyzer.getClusters(positionedFields, NUM_REGIONS_MIN / 2, NUM_REGIONS_MAX / 2, //
-				MIN_DISTANCE_BETWEEN_REGION_CENTERS);
+				MIN_DISTANCE_BETWEEN_REGION_CENTERS, random);
 		
 		for (Cluster<PositionedField> cluster : clusters) {
 			Set<Field> fieldsInCluster = cluster.entries.stream() //
 					.map(PositionedField::getField) //
 					.collect(Collectors.toSet());
 			
-			Region region = new Region(fieldsInCluster, calculateBonusTroopsForRegion(fieldsInCluster));
+			Region region = new Region(nextRegionId++, fieldsInCluster, calculateBonusTroopsForRegion(fieldsInCluster));
 			
-			regions.add(region);
+			addRegion(region);
+		}
+	}
+	
+	private void addRegion(Region region) {
+		regions.add(region);
+		for (Field field : region.fields) {
+			fieldRegions.put(field, region);
 		}
 	}
 	
@@ -208,25 +294,30 @@ public class MapGenerator {
 	 * Or return an empty {@link Optional} if all fields are connected to each other (transitively).
 	 */
 	private Optional<Set<Set<Field>>> getDividedFieldGroups() {
-		Set<Field> allFields = new HashSet<>(fields); // create a copy of the set, because elements will be removed from it
-		Set<Set<Field>> fieldGroups = new HashSet<>();
+		Map<Field, Integer> fieldIndices = getFieldIndices();
 		
-		while (!allFields.isEmpty()) {
-			// perform a depth first search, add all fields to the group and remove them from the allFields set
-			Set<Field> group = new HashSet<>();
-			
-			Field start = allFields.stream().findFirst().get();
-			performDepthFirstSearch(allFields, group, start);
-			
-			fieldGroups.add(group);
+		// merge the groups of all connected fields (without a recursive search, that could overflow the stack on large maps)
+		UnionFind groups = new UnionFind(fields.size());
+		for (int i = 0; i < fields.size(); i++) {
+			for (Field connected : getConnections(fields.get(i))) {
+				Integer connectedIndex = fieldIndices.get(connected);
+				if (connectedIndex != null) {
+					groups.union(i, connectedIndex);
+				}
+			}
 		}
 		
-		if (fieldGroups.size() == 1) {
+		if (groups.getNumSets() <= 1) {
 			// all fields are connected transitively, so there are no divided field groups -> return an empty Optional
 			return Optional.empty();
 		}
 		
-		return Optional.of(fieldGroups);
+		Map<Integer, Set<Field>> fieldGroups = new HashMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			fieldGroups.computeIfAbsent(groups.find(i), x -> new HashSet<>()).add(fields.get(i));
+		}
+		
+		return Optional.of(new HashSet<>(fieldGroups.values()));
 	}
 	
 	/**
@@ -251,7 +342,18 @@ public class MapGenerator {
 		}
 	}
 	
+	/**
+	 * Remove connections from fields that have too many connections, but keep all fields connected transitively.
+	 * 
+	 * All fields are connected when this method is called, so removing a connection divides the fields if and only if the connection
+	 * is a bridge. Therefore the bridges are calculated once after every removed connection (instead of checking whether the fields
+	 * are divided after every tried removal).
+	 */
 	private void removeDispensableConnections() {
+		Map<Field, Integer> fieldIndices = getFieldIndices();
+		BridgeFinder bridgeFinder = new BridgeFinder(fields.size());
+		findBridges(bridgeFinder, fieldIndices);
+		
 		boolean removedConnection = true;
 		while (removedConnection) {
 			removedConnection = false;
@@ -263,7 +365,7 @@ public class MapGenerator {
 			
 			// remove one connection from every field that has to much connections
 			for (Field field : sortedFields) {
-				Set<Field> connectionsToCurrentField = new HashSet<>(connections.get(field)); // copy the set to prevent a concurrent modification
+				Set<Field> connectionsToCurrentField = connections.get(field);
 				
 				if (connectionsToCurrentField.size() > NUM_CONNECTIONS_PER_FIELD_MAX) {
 					// sort the connected fields by number of connections to remove connections from the ones with many connections first
@@ -272,13 +374,11 @@ public class MapGenerator {
 							.collect(Collectors.toList());
 					
 					for (Field other : sortedConnectedFields) {
-						removeConnection(field, other);
-						if (getDividedFieldGroups().isPresent() || // check whether all fields are still connected transitively 
-								connections.get(other).size() < NUM_CONNECTIONS_PER_FIELD_MIN) { // check whether the other field has not enough connections now
-							// re-connect the fields (backtracking)
-							connectFields(field, other);
-						}
-						else {
+						if (!bridgeFinder.isBridge(fieldIndices.get(field), fieldIndices.get(other)) && // check whether all fields stay connected transitively
+								connections.get(other).size() > NUM_CONNECTIONS_PER_FIELD_MIN) { // check whether the other field keeps enough connections
+							removeConnection(field, other);
+							findBridges(bridgeFinder, fieldIndices);
+							
 							removedConnection = true;
 							// only remove one connection in every step
 							break;
@@ -289,6 +389,251 @@ public class MapGenerator {
 		}
 	}
 	
+	/**
+	 * Find the bridges in the connections between the fields, using a compressed adjacency list of the field indices.
+	 */
+	private void findBridges(BridgeFinder bridgeFinder, Map<Field, Integer> fieldIndices) {
+		int[] offsets = new int[fields.size() + 1];
+		for (int i = 0; i < fields.size(); i++) {
+			offsets[i + 1] = offsets[i] + getConnections(fields.get(i)).size();
+		}
+		
+		int[] neighbours = new int[offsets[fields.size()]];
+		for (int i = 0; i < fields.size(); i++) {
+			int position = offsets[i];
+			for (Field connected : getConnections(fields.get(i))) {
+				neighbours[position++] = fieldIndices.get(connected);
+			}
+		}
+		
+		bridgeFinder.findBridges(offsets, neighbours);
+	}
+	
+	//*************************************************************************
+	//*** large map mode
+	//*************************************************************************
+	
+	private boolean isLargeMap() {
+		return numFields >= LARGE_MAP_MIN_FIELDS;
+	}
+	
+	/**
+	 * Find the nearest fields of every field (using a spatial grid), that are the candidates for the connections in the large map mode.
+	 */
+	private void findNearestFields() {
+		double[] x = new double[fields.size()];
+		double[] y = new double[fields.size()];
+		for (int i = 0; i < fields.size(); i++) {
+			Vector2D position = positions.get(fields.get(i));
+			x[i] = position.x;
+			y[i] = position.y;
+		}
+		
+		double cellSize = SpatialGrid.calculateCellSize(FIELD_WIDTH / 2, FIELD_HEIGHT, fields.size(), LARGE_MAP_FIELDS_PER_GRID_CELL);
+		fieldGrid = new SpatialGrid(x, y, cellSize);
+		
+		nearestFields = new int[fields.size()][];
+		nearestFieldDistances = new double[fields.size()][];
+		int[] neighbours = new int[LARGE_MAP_NUM_NEAREST_FIELDS];
+		double[] distances = new double[LARGE_MAP_NUM_NEAREST_FIELDS];
+		for (int i = 0; i < fields.size(); i++) {
+			int found = fieldGrid.findNearestNeighbours(i, LARGE_MAP_NUM_NEAREST_FIELDS, neighbours, distances);
+			nearestFields[i] = Arrays.copyOf(neighbours, found);
+			nearestFieldDistances[i] = Arrays.copyOf(distances, found);
+		}
+	}
+	
+	/**
+	 * Choose random fields as region centers and add every field to the region of the nearest center.
+	 */
+	private void chooseRegionsAroundRandomFields() {
+		int numRegions = Math.max(NUM_REGIONS_MIN / 2, Math.round(fields.size() / LARGE_MAP_FIELDS_PER_REGION));
+		
+		// choose the centers by a partial shuffle of the field indices
+		int[] fieldIndices = IntStream.range(0, fields.size()).toArray();
+		double[] centerX = new double[numRegions];
+		double[] centerY = new double[numRegions];
+		for (int i = 0; i < numRegions; i++) {
+			int j = i + random.nextInt(fields.size() - i);
+			int tmp = fieldIndices[i];
+			fieldIndices[i] = fieldIndices[j];
+			fieldIndices[j] = tmp;
+			
+			Vector2D position = positions.get(fields.get(fieldIndices[i]));
+			centerX[i] = position.x;
+			centerY[i] = position.y;
+		}
+		
+		double cellSize = SpatialGrid.calculateCellSize(FIELD_WIDTH / 2, FIELD_HEIGHT, numRegions, LARGE_MAP_FIELDS_PER_GRID_CELL);
+		SpatialGrid centerGrid = new SpatialGrid(centerX, centerY, cellSize);
+		
+		List<Set<Field>> regionFields = new ArrayList<>();
+		for (int i = 0; i < numRegions; i++) {
+			regionFields.add(new HashSet<>());
+		}
+		for (Field field : fields) {
+			Vector2D position = positions.get(field);
+			regionFields.get(centerGrid.findNearest(position.x, position.y, center -> true)).add(field);
+		}
+		
+		for (Set<Field> fieldsInRegion : regionFields) {
+			if (fieldsInRegion.isEmpty()) {
+				continue; // only possible if two centers have the same position
+			}
+			addRegion(new Region(nextRegionId++, fieldsInRegion, calculateBonusTroopsForRegion(fieldsInRegion)));
+		}
+	}
+	
+	/**
+	 * Like {@link #connectFields()}, but only the nearest fields of every field are candidates for a connection. The chance to be
+	 * connected decreases with the distance relative to the farthest candidate.
+	 */
+	private void connectFieldsToNearestFields() {
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			int numTargetConnections = random.nextInt(NUM_CONNECTIONS_PER_FIELD_MAX - NUM_CONNECTIONS_PER_FIELD_MIN) + NUM_CONNECTIONS_PER_FIELD_MIN;
+			int numConnections = getConnections(field).size();
+			double maxDistance = nearestFieldDistances[i].length == 0 ? 1 : nearestFieldDistances[i][nearestFieldDistances[i].length - 1];
+			
+			for (int j = 0; j < nearestFields[i].length && numConnections < numTargetConnections; j++) {
+				Field other = fields.get(nearestFields[i][j]);
+				if (getConnections(other).size() <= NUM_CONNECTIONS_PER_FIELD_MAX && !isFieldsConnected(field, other)) {
+					double relativeDistance = nearestFieldDistances[i][j] / Math.max(maxDistance, 1e-6);
+					double regionFactor = (isFieldsInSameRegion(field, other) ? 1 : 0.5f);
+					double connectionProbability = relativeDistance * regionFactor;
+					
+					if (random.nextFloat() > connectionProbability) {
+						numConnections++;
+						connectFields(field, other);
+					}
+				}
+			}
+		}
+		
+		// add connections to all fields that have not reached the minimum number of connections yet (to the nearest fields with few connections)
+		for (int i = 0; i < fields.size(); i++) {
+			Field field = fields.get(i);
+			int numConnections = getConnections(field).size();
+			
+			if (numConnections < NUM_CONNECTIONS_PER_FIELD_MIN) {
+				Arrays.stream(nearestFields[i]) //
+						.mapToObj(fields::get) //
+						.filter(other -> !isFieldsConnected(field, other)) //
+						.sorted(Comparator.comparing(other -> getConnections(other).size())) //
+						.limit(NUM_CONNECTIONS_PER_FIELD_MIN - numConnections) //
+						.forEach(other -> connectFields(field, other));
+			}
+		}
+	}
+	
+	/**
+	 * Connect the divided groups of fields, like Kruskal's algorithm: the candidate connections between the nearest fields are added by
+	 * increasing distance, if they connect two groups. Groups that are still divided afterwards are connected to the nearest field of
+	 * another group.
+	 */
+	private void connectDividedFieldsToNearestFields() {
+		Map<Field, Integer> fieldIndices = getFieldIndices();
+		UnionFind groups = new UnionFind(fields.size());
+		for (int i = 0; i < fields.size(); i++) {
+			for (Field connected : getConnections(fields.get(i))) {
+				groups.union(i, fieldIndices.get(connected));
+			}
+		}
+		
+		if (groups.getNumSets() > 1) {
+			// sort the candidate connections by distance (the distance is positive, so the order of the float bits is the same)
+			int numCandidates = Arrays.stream(nearestFields).mapToInt(nearest -> nearest.length).sum();
+			long[] candidates = new long[numCandidates];
+			int[] candidateFields = new int[numCandidates];
+			int numCrossingCandidates = 0;
+			for (int i = 0; i < fields.size(); i++) {
+				for (int j = 0; j < nearestFields[i].length; j++) {
+					if (!groups.isConnected(i, nearestFields[i][j])) {
+						int candidate = numCrossingCandidates++;
+						candidateFields[candidate] = i * LARGE_MAP_NUM_NEAREST_FIELDS + j;
+						candidates[candidate] = ((long) Float.floatToIntBits((float) nearestFieldDistances[i][j]) << 32) | candidate;
+					}
+				}
+			}
+			Arrays.sort(candidates, 0, numCrossingCandidates);
+			
+			for (int c = 0; c < numCrossingCandidates && groups.getNumSets() > 1; c++) {
+				int candidateField = candidateFields[(int) candidates[c]];
+				int i = candidateField / LARGE_MAP_NUM_NEAREST_FIELDS;
+				int other = nearestFields[i][candidateField % LARGE_MAP_NUM_NEAREST_FIELDS];
+				if (groups.union(i, other)) {
+					connectFields(fields.get(i), fields.get(other));
+				}
+			}
+		}
+		
+		// the nearest fields of a group may all be in the same group (if the group is far away from the other fields)
+		for (int i = 0; i < fields.size() && groups.getNumSets() > 1; i++) {
+			final int group = groups.find(i);
+			if (group != groups.find(0)) {
+				Vector2D position = positions.get(fields.get(i));
+				int other = fieldGrid.findNearest(position.x, position.y, candidate -> groups.find(candidate) != group);
+				groups.union(i, other);
+				connectFields(fields.get(i), fields.get(other));
+			}
+		}
+	}
+	
+	/**
+	 * Like {@link #removeDispensableConnections()}, but instead of finding the bridges after every removed connection, a spanning tree
+	 * of the connections is kept. All connections that are not in the spanning tree can be removed without dividing the fields.
+	 */
+	private void removeDispensableConnectionsOutsideSpanningTree() {
+		Map<Field, Integer> fieldIndices = getFieldIndices();
+		
+		// find a spanning tree with a breadth first search (all fields are connected)
+		int[] parents = new int[fields.size()];
+		Arrays.fill(parents, -1);
+		int[] queue = new int[fields.size()];
+		int queueStart = 0;
+		int queueEnd = 0;
+		queue[queueEnd++] = 0;
+		parents[0] = 0;
+		while (queueStart < queueEnd) {
+			int current = queue[queueStart++];
+			for (Field connected : getConnections(fields.get(current))) {
+				int index = fieldIndices.get(connected);
+				if (parents[index] == -1) {
+					parents[index] = current;
+					queue[queueEnd++] = index;
+				}
+			}
+		}
+		
+		// sort the fields by number of connections to remove connections from the ones with many connections first
+		List<Field> sortedFields = fields.stream() //
+				.sorted(Comparator.comparing((Field field) -> getConnections(field).size()).reversed()) //
+				.collect(Collectors.toList());
+		
+		for (Field field : sortedFields) {
+			Set<Field> connectionsToCurrentField = connections.get(field);
+			
+			if (connectionsToCurrentField.size() > NUM_CONNECTIONS_PER_FIELD_MAX) {
+				int index = fieldIndices.get(field);
+				List<Field> sortedConnectedFields = connectionsToCurrentField.stream() //
+						.sorted(Comparator.comparing((Field other) -> getConnections(other).size()).reversed()) //
+						.collect(Collectors.toList());
+				
+				for (Field other : sortedConnectedFields) {
+					if (connectionsToCurrentField.size() <= NUM_CONNECTIONS_PER_FIELD_MAX) {
+						break;
+					}
+					
+					int otherIndex = fieldIndices.get(other);
+					boolean treeConnection = parents[index] == otherIndex || parents[otherIndex] == index;
+					if (!treeConnection && connections.get(other).size() > NUM_CONNECTIONS_PER_FIELD_MIN) {
+						removeConnection(field, other);
+					}
+				}
+			}
+		}
+	}
+	
 	private void mirrorGraph() {
 		// mirror all fields
 		Map<Field, Vector2D> mirroredPositions = new HashMap<>();
@@ -326,9 +671,9 @@ public class MapGenerator {
 					.map(field -> fields.get(field.id + numHalfFields)) //
 					.collect(Collectors.toSet());
 			
-			mirroredRegions.add(new Region(mirroredRegionFields, region.bonusTroops));
+			mirroredRegions.add(new Region(nextRegionId++, mirroredRegionFields, region.bonusTroops));
 		}
-		regions.addAll(mirroredRegions);
+		mirroredRegions.forEach(this::addRegion);
 	}
 	
 	private void connectSides() {
@@ -370,7 +715,7 @@ public class MapGenerator {
 			}
 		}
 		
-		return new GameMap(new HashSet<>(fields), distinctConnectionSet, new HashSet<>(regions));
+		return new GameMap(new HashSet<>(fields), distinctConnectionSet, new HashSet<>(regions), random);
 	}
 	
 	//*************************************************************************
@@ -408,16 +753,15 @@ public class MapGenerator {
 				.forEach(pair -> connectFields(pair.getKey(), pair.getValue()));
 	}
 	
-	private void performDepthFirstSearch(Set<Field> allFields, Set<Field> group, Field field) {
-		allFields.remove(field);
-		group.add(field);
-		
-		Set<Field> connectedFields = getConnections(field);
-		for (Field connected : connectedFields) {
-			if (!group.contains(connected)) {
-				performDepthFirstSearch(allFields, group, connected);
-			}
+	/**
+	 * The index of every field in the list of fields.
+	 */
+	private Map<Field, Integer> getFieldIndices() {
+		Map<Field, Integer> fieldIndices = new HashMap<>();
+		for (int i = 0; i < fields.size(); i++) {
+			fieldIndices.put(fields.get(i), i);
 		}
+		return fieldIndices;
 	}
 	
 	private void removeConnection(Field field, Field other) {
@@ -426,6 +770,7 @@ public class MapGenerator {
 	}
 	
 	private boolean isFieldsInSameRegion(Field field, Field other) {
-		return regions.stream().anyMatch(region -> region.fields.contains(field) && region.fields.contains(other));
+		Region region = fieldRegions.get(field);
+		return region != null && region == fieldRegions.get(other);
 	}
 }
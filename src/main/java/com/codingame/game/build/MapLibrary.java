@@ -0,0 +1,292 @@
+package com.codingame.game.build;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Region;
+import com.codingame.game.util.Pair;
+import com.codingame.game.util.Vector2D;
+
+/**
+ * A library of pre-generated maps (keyed by seed), that is read from a memory-mapped file in the binary map format (see
+ * {@link MapLibraryWriter}), so a map can be loaded without generating it.
+ * 
+ * The loading is thread safe, so one library can be used by many concurrent games.
+ */
+public class MapLibrary implements Closeable {
+	
+	static final int MAGIC = 0x414F434D; // "AOCM"
+	static final int VERSION = 1;
+	
+	static final int TRAILER_BYTES = 8 + 4 + 4; // the index offset, the number of maps and the magic number
+	static final int INDEX_ENTRY_BYTES = 8 + 8; // the seed and the offset of the map
+	
+	private static final Map<Path, MapLibrary> SHARED_LIBRARIES = new ConcurrentHashMap<>(); // keyed by the normalized absolute path
+	
+	private final FileChannel channel;
+	private final MappedByteBuffer buffer;
+	
+	private final long[] seeds; // sorted
+	private final long[] offsets;
+	private final long[] ends; // the end of every map (the offset of the next map in the file or of the index)
+	
+	/**
+	 * Open a map library file, that was written by a {@link MapLibraryWriter}.
+	 * 
+	 * @throws IOException
+	 *         If the file can't be read or is not a map library
+	 */
+	public static MapLibrary open(Path file) throws IOException {
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			return new MapLibrary(channel);
+		}
+		catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the library of a file, that is opened only once and then shared by all callers (e.g. all games of a tournament), so the
+	 * file is not mapped and indexed again for every game. Changes of the file after it was opened are not noticed.
+	 * 
+	 * The shared libraries are never closed (the mapped buffer stays valid anyway, so closing one doesn't break the other callers).
+	 * 
+	 * @throws IOException
+	 *         If the file can't be read or is not a map library
+	 */
+	public static MapLibrary openShared(Path file) throws IOException {
+		Path key = file.toAbsolutePath().normalize();
+		MapLibrary library = SHARED_LIBRARIES.get(key);
+		if (library == null) {
+			synchronized (SHARED_LIBRARIES) {
+				library = SHARED_LIBRARIES.get(key);
+				if (library == null) {
+					library = open(key);
+					SHARED_LIBRARIES.put(key, library);
+				}
+			}
+		}
+		return library;
+	}
+	
+	private MapLibrary(FileChannel channel) throws IOException {
+		this.channel = channel;
+		
+		if (channel.size() > Integer.MAX_VALUE) {
+			throw new IOException("The map library is too large to be memory-mapped: " + channel.size() + " bytes");
+		}
+		if (channel.size() < 8 + TRAILER_BYTES) {
+			throw new IOException("The file is not a map library (too small)");
+		}
+		buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+		
+		if (buffer.getInt(0) != MAGIC || buffer.getInt(buffer.capacity() - 4) != MAGIC) {
+			throw new IOException("The file is not a map library (wrong magic number)");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported map library version: " + buffer.getInt(4));
+		}
+		
+		long indexOffset = buffer.getLong(buffer.capacity() - TRAILER_BYTES);
+		int numMaps = buffer.getInt(buffer.capacity() - TRAILER_BYTES + 8);
+		if (numMaps < 0 || indexOffset < 8 || indexOffset + (long) numMaps * INDEX_ENTRY_BYTES != buffer.capacity() - TRAILER_BYTES) {
+			throw new IOException("The index of the map library is corrupt (offset " + indexOffset + ", " + numMaps + " maps, file size "
+					+ buffer.capacity() + ")");
+		}
+		
+		seeds = new long[numMaps];
+		offsets = new long[numMaps];
+		for (int i = 0; i < numMaps; i++) {
+			seeds[i] = buffer.getLong((int) indexOffset + i * INDEX_ENTRY_BYTES);
+			offsets[i] = buffer.getLong((int) indexOffset + i * INDEX_ENTRY_BYTES + 8);
+			if (offsets[i] < 8 || offsets[i] >= indexOffset) {
+				throw new IOException("The offset of the map for the seed " + seeds[i] + " is out of range: " + offsets[i]);
+			}
+			if (i > 0 && seeds[i] <= seeds[i - 1]) {
+				throw new IOException("The index of the map library is not sorted by seed");
+			}
+		}
+		
+		long[] sortedOffsets = offsets.clone();
+		Arrays.sort(sortedOffsets);
+		ends = new long[numMaps];
+		for (int i = 0; i < numMaps; i++) {
+			int next = Arrays.binarySearch(sortedOffsets, offsets[i]) + 1;
+			if (next < numMaps && sortedOffsets[next] == offsets[i]) {
+				throw new IOException("The maps for the seeds " + seeds[i] + " and another seed have the same offset");
+			}
+			ends[i] = next < numMaps ? sortedOffsets[next] : indexOffset;
+		}
+	}
+	
+	public int size() {
+		return seeds.length;
+	}
+	
+	public boolean contains(long seed) {
+		return Arrays.binarySearch(seeds, seed) >= 0;
+	}
+	
+	/**
+	 * Get the (sorted) seeds of all maps in the library.
+	 */
+	public long[] getSeeds() {
+		return seeds.clone();
+	}
+	
+	/**
+	 * Load the map that was generated with the given seed.
+	 * 
+	 * @param random
+	 *        The random instance that is used by the map during the game (e.g. to choose random starting fields)
+	 * 
+	 * @return The map or an empty {@link Optional} if the library contains no map for this seed
+	 * 
+	 * @throws IOException
+	 *         If the stored map is corrupt
+	 */
+	public Optional<Entry> loadMap(long seed, RandomUtil random) throws IOException {
+		int index = Arrays.binarySearch(seeds, seed);
+		if (index < 0) {
+			return Optional.empty();
+		}
+		
+		ByteBuffer data = buffer.duplicate(); // a view with it's own position, so maps can be loaded concurrently
+		data.limit((int) ends[index]).position((int) offsets[index]);
+		try {
+			return Optional.of(readMap(seed, data, random));
+		}
+		catch (BufferUnderflowException e) {
+			throw new IOException("The map for the seed " + seed + " is truncated", e);
+		}
+	}
+	
+	private Entry readMap(long seed, ByteBuffer data, RandomUtil random) throws IOException {
+		int numFields = data.getInt();
+		int numFieldIds = data.getInt();
+		// every field takes at least 12 bytes and every field id at least 4 bytes (the offset of the neighbours)
+		if (numFields < 0 || numFieldIds < 0 || numFields > numFieldIds || (long) numFields * 12 + (long) numFieldIds * 4 > data.remaining()) {
+			throw new IOException("The map for the seed " + seed + " is corrupt (" + numFields + " fields with " + numFieldIds + " ids)");
+		}
+		
+		Field[] fieldsById = new Field[numFieldIds];
+		Set<Field> fields = new HashSet<>();
+		Map<Field, Vector2D> positions = new HashMap<>();
+		Field[] fieldOrder = new Field[numFields];
+		for (int i = 0; i < numFields; i++) {
+			Field field = new Field(checkFieldId(data.getInt(), numFieldIds, seed));
+			fieldsById[field.id] = field;
+			fieldOrder[i] = field;
+			fields.add(field);
+			positions.put(field, new Vector2D(data.getFloat(), data.getFloat()));
+		}
+		
+		Map<Field, Vector2D> placedPositions = null;
+		if (data.get() != 0) {
+			placedPositions = new HashMap<>();
+			for (int i = 0; i < numFields; i++) {
+				placedPositions.put(fieldOrder[i], new Vector2D(data.getFloat(), data.getFloat()));
+			}
+		}
+		
+		int numRegions = data.getInt();
+		Set<Region> regions = new HashSet<>();
+		for (int i = 0; i < numRegions; i++) {
+			int id = data.getInt();
+			int bonusTroops = data.getInt();
+			int size = data.getInt();
+			Set<Field> regionFields = new HashSet<>();
+			for (int j = 0; j < size; j++) {
+				regionFields.add(getField(fieldsById, data.getInt(), seed));
+			}
+			regions.add(new Region(id, regionFields, bonusTroops));
+		}
+		
+		// the connections are stored as compressed adjacency lists (in both directions)
+		int[] neighbourOffsets = new int[numFieldIds + 1];
+		for (int i = 0; i <= numFieldIds; i++) {
+			neighbourOffsets[i] = data.getInt();
+			if (i > 0 && neighbourOffsets[i] < neighbourOffsets[i - 1]) {
+				throw new IOException("The connections of the map for the seed " + seed + " are corrupt");
+			}
+		}
+		Set<Pair<Field, Field>> connections = new HashSet<>();
+		for (int i = 0; i < numFieldIds; i++) {
+			for (int j = neighbourOffsets[i]; j < neighbourOffsets[i + 1]; j++) {
+				int neighbour = data.getInt();
+				if (neighbour > i) {
+					connections.add(Pair.of(getField(fieldsById, i, seed), getField(fieldsById, neighbour, seed)));
+				}
+			}
+		}
+		
+		GameMap map = new GameMap(fields, connections, regions, random);
+		return new Entry(seed, map, positions, placedPositions);
+	}
+	
+	private static int checkFieldId(int id, int numFieldIds, long seed) throws IOException {
+		if (id < 0 || id >= numFieldIds) {
+			throw new IOException("The map for the seed " + seed + " contains the field id " + id + " that is out of range");
+		}
+		return id;
+	}
+	
+	private static Field getField(Field[] fieldsById, int id, long seed) throws IOException {
+		Field field = fieldsById[checkFieldId(id, fieldsById.length, seed)];
+		if (field == null) {
+			throw new IOException("The map for the seed " + seed + " refers to the field id " + id + " that doesn't exist");
+		}
+		return field;
+	}
+	
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+	
+	/**
+	 * A map of the library with the positions of the fields.
+	 */
+	public static class Entry {
+		
+		public final long seed;
+		public final GameMap map;
+		/**
+		 * The positions that were used to generate the map (like the positions that are returned by the {@link MapGenerator}).
+		 */
+		public final Map<Field, Vector2D> positions;
+		/**
+		 * The positions of the fields in the view (placed from the positions above), or null if they were not stored.
+		 */
+		public final Map<Field, Vector2D> placedPositions;
+		
+		public Entry(long seed, GameMap map, Map<Field, Vector2D> positions, Map<Field, Vector2D> placedPositions) {
+			this.seed = seed;
+			this.map = map;
+			this.positions = positions;
+			this.placedPositions = placedPositions;
+		}
+		
+		public Optional<Map<Field, Vector2D>> getPlacedPositions() {
+			return Optional.ofNullable(placedPositions);
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package com.codingame.game.build;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.codingame.game.core.ConnectionIndex;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Region;
+import com.codingame.game.util.Vector2D;
+
+/**
+ * Writes maps into a map library file, that can be loaded with a {@link MapLibrary}.
+ * 
+ * The file starts with a header (magic number and version), that is followed by the maps and an index of the seeds. Every map is
+ * stored as:
+ * <ul>
+ * <li>the number of fields and the number of field ids (highest id + 1)</li>
+ * <li>the id and the position (x, y as float) of every field (sorted by id)</li>
+ * <li>a flag whether the placed view positions are stored, followed by the placed positions (in the same order as the fields)</li>
+ * <li>the regions (id, bonus troops, number of fields and the field ids)</li>
+ * <li>the connections as compressed adjacency lists: numIds + 1 offsets, followed by the neighbour ids of every field id</li>
+ * </ul>
+ * The index contains the seed and the offset of every map (sorted by seed), followed by the offset of the index, the number of
+ * maps and the magic number. All values are big endian.
+ * 
+ * Maps can be added concurrently.
+ */
+public class MapLibraryWriter implements Closeable {
+	
+	private final DataOutputStream output;
+	private long position;
+	
+	private final List<long[]> index = new ArrayList<>(); // seed and offset of every map
+	private final Set<Long> seeds = new HashSet<>();
+	
+	private boolean closed;
+	
+	public MapLibraryWriter(Path file) throws IOException {
+		output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+		output.writeInt(MapLibrary.MAGIC);
+		output.writeInt(MapLibrary.VERSION);
+		position = 8;
+	}
+	
+	/**
+	 * Add a map to the library.
+	 * 
+	 * @param positions
+	 *        The positions of the fields, that were used to generate the map
+	 * 
+	 * @param placedPositions
+	 *        The positions of the fields in the view (see {@link com.codingame.game.view.View#placeFields(GameMap, Map)}), or null if
+	 *        the placement should be calculated when the map is loaded
+	 */
+	public void add(long seed, GameMap map, Map<Field, Vector2D> positions, Map<Field, Vector2D> placedPositions) throws IOException {
+		byte[] encoded = encode(map, positions, placedPositions); // encode outside of the lock
+		
+		synchronized (this) {
+			if (closed) {
+				throw new IllegalStateException("The map library writer is already closed");
+			}
+			if (!seeds.add(seed)) {
+				throw new IllegalArgumentException("The library already contains a map for the seed " + seed);
+			}
+			
+			index.add(new long[] {seed, position});
+			output.write(encoded);
+			position += encoded.length;
+		}
+	}
+	
+	private static byte[] encode(GameMap map, Map<Field, Vector2D> positions, Map<Field, Vector2D> placedPositions) throws IOException {
+		List<Field> fields = new ArrayList<>(map.fields);
+		fields.sort(Comparator.comparingInt(field -> field.id));
+		int numIds = fields.isEmpty() ? 0 : fields.get(fields.size() - 1).id + 1;
+		
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream data = new DataOutputStream(bytes);
+		
+		data.writeInt(fields.size());
+		data.writeInt(numIds);
+		for (Field field : fields) {
+			data.writeInt(field.id);
+			writePosition(data, positions, field);
+		}
+		
+		data.writeBoolean(placedPositions != null);
+		if (placedPositions != null) {
+			for (Field field : fields) {
+				writePosition(data, placedPositions, field);
+			}
+		}
+		
+		List<Region> regions = new ArrayList<>(map.regions);
+		regions.sort(Comparator.comparingInt(region -> region.id));
+		data.writeInt(regions.size());
+		for (Region region : regions) {
+			data.writeInt(region.id);
+			data.writeInt(region.bonusTroops);
+			data.writeInt(region.fields.size());
+			for (Field field : region.fields) {
+				data.writeInt(field.id);
+			}
+		}
+		
+		ConnectionIndex connectionIndex = map.getConnectionIndex();
+		int offset = 0;
+		data.writeInt(offset);
+		for (int id = 0; id < numIds; id++) {
+			offset += connectionIndex.getNumNeighbours(id);
+			data.writeInt(offset);
+		}
+		for (int id = 0; id < numIds; id++) {
+			for (int i = 0; i < connectionIndex.getNumNeighbours(id); i++) {
+				data.writeInt(connectionIndex.getNeighbourId(id, i));
+			}
+		}
+		
+		data.flush();
+		return bytes.toByteArray();
+	}
+	
+	private static void writePosition(DataOutputStream data, Map<Field, Vector2D> positions, Field field) throws IOException {
+		Vector2D position = positions.get(field);
+		if (position == null) {
+			throw new IllegalArgumentException("No position for the field " + field.id);
+		}
+		data.writeFloat((float) position.x);
+		data.writeFloat((float) position.y);
+	}
+	
+	/**
+	 * Write the index and close the file.
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		
+		index.sort(Comparator.comparingLong(entry -> entry[0]));
+		long indexOffset = position;
+		for (long[] entry : index) {
+			output.writeLong(entry[0]);
+			output.writeLong(entry[1]);
+		}
+		output.writeLong(indexOffset);
+		output.writeInt(index.size());
+		output.writeInt(MapLibrary.MAGIC);
+		output.close();
+	}
+}
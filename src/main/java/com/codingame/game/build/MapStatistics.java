@@ -0,0 +1,192 @@
+package com.codingame.game.build;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import com.codingame.game.core.ConnectionIndex;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+
+/**
+ * Statistics of a generated map, to vet the quality of generated maps (e.g. in a pool of maps for a map library).
+ * 
+ * The diameter is calculated exactly (with a breadth first search from every field) for maps with up to
+ * {@link #EXACT_DIAMETER_MAX_FIELDS} fields. For larger maps a lower bound is calculated with two breadth first searches instead
+ * (from any field to the farthest field and from there to the farthest field again), which is exact for most generated maps.
+ */
+public class MapStatistics {
+	
+	public static final int EXACT_DIAMETER_MAX_FIELDS = 1024;
+	
+	public static final String CSV_HEADER = "seed,fields,connections,min_degree,max_degree,average_degree,degree_distribution,regions,region_sizes,diameter,cross_side_connections";
+	
+	public final long seed;
+	public final int numFields;
+	public final int numConnections;
+	/**
+	 * The number of fields per degree (the index is the number of neighbours of a field).
+	 */
+	public final int[] degreeDistribution;
+	/**
+	 * The number of fields of every region (sorted ascending).
+	 */
+	public final int[] regionSizes;
+	public final int diameter;
+	public final boolean exactDiameter;
+	/**
+	 * The number of connections between the left and the right side of the map (that were added when the sides were connected).
+	 */
+	public final int numCrossSideConnections;
+	
+	private MapStatistics(long seed, int numFields, int numConnections, int[] degreeDistribution, int[] regionSizes, int diameter,
+			boolean exactDiameter, int numCrossSideConnections) {
+		this.seed = seed;
+		this.numFields = numFields;
+		this.numConnections = numConnections;
+		this.degreeDistribution = degreeDistribution;
+		this.regionSizes = regionSizes;
+		this.diameter = diameter;
+		this.exactDiameter = exactDiameter;
+		this.numCrossSideConnections = numCrossSideConnections;
+	}
+	
+	/**
+	 * Calculate the statistics of a map, that was created by the {@link MapGenerator} (the fields of the left side have the ids 0 to
+	 * numFields / 2 - 1 and are mirrored to the right side).
+	 */
+	public static MapStatistics of(long seed, GameMap map) {
+		int numIds = map.fields.stream().mapToInt(field -> field.id + 1).max().orElse(0);
+		ConnectionIndex connectionIndex = map.getConnectionIndex();
+		
+		int maxDegree = 0;
+		for (Field field : map.fields) {
+			maxDegree = Math.max(maxDegree, connectionIndex.getNumNeighbours(field.id));
+		}
+		int[] degreeDistribution = new int[maxDegree + 1];
+		for (Field field : map.fields) {
+			degreeDistribution[connectionIndex.getNumNeighbours(field.id)]++;
+		}
+		
+		int[] regionSizes = map.regions.stream().mapToInt(region -> region.fields.size()).sorted().toArray();
+		
+		int halfFields = map.fields.size() / 2;
+		int numCrossSideConnections = (int) map.connections.stream() //
+				.filter(connection -> (connection.getKey().id < halfFields) != (connection.getValue().id < halfFields)) //
+				.count();
+		
+		DiameterSearch diameterSearch = new DiameterSearch(numIds, connectionIndex);
+		boolean exactDiameter = map.fields.size() <= EXACT_DIAMETER_MAX_FIELDS;
+		int diameter = 0;
+		if (exactDiameter) {
+			for (Field field : map.fields) {
+				diameter = Math.max(diameter, diameterSearch.findEccentricity(field.id));
+			}
+		}
+		else if (!map.fields.isEmpty()) {
+			diameterSearch.findEccentricity(map.fields.iterator().next().id);
+			diameter = diameterSearch.findEccentricity(diameterSearch.farthestId);
+		}
+		
+		return new MapStatistics(seed, map.fields.size(), map.connections.size(), degreeDistribution, regionSizes, diameter, exactDiameter,
+				numCrossSideConnections);
+	}
+	
+	public int getMinDegree() {
+		for (int degree = 0; degree < degreeDistribution.length; degree++) {
+			if (degreeDistribution[degree] > 0) {
+				return degree;
+			}
+		}
+		return 0;
+	}
+	
+	public int getMaxDegree() {
+		return degreeDistribution.length - 1;
+	}
+	
+	public double getAverageDegree() {
+		return numFields == 0 ? 0 : 2.0 * numConnections / numFields;
+	}
+	
+	/**
+	 * Create a line for a csv file with the columns of the {@link #CSV_HEADER}. The degree distribution is written as space separated
+	 * "degree:count" pairs and the region sizes are space separated.
+	 */
+	public String toCsvLine() {
+		StringBuilder distribution = new StringBuilder();
+		for (int degree = 0; degree < degreeDistribution.length; degree++) {
+			if (degreeDistribution[degree] > 0) {
+				if (distribution.length() > 0) {
+					distribution.append(' ');
+				}
+				distribution.append(degree).append(':').append(degreeDistribution[degree]);
+			}
+		}
+		
+		StringBuilder sizes = new StringBuilder();
+		for (int size : regionSizes) {
+			if (sizes.length() > 0) {
+				sizes.append(' ');
+			}
+			sizes.append(size);
+		}
+		
+		return seed + "," + numFields + "," + numConnections + "," + getMinDegree() + "," + getMaxDegree() + ","
+				+ String.format(Locale.ROOT, "%.3f", getAverageDegree()) + "," + distribution + "," + regionSizes.length + "," + sizes
+				+ "," + (exactDiameter ? "" : ">=") + diameter + "," + numCrossSideConnections;
+	}
+	
+	@Override
+	public String toString() {
+		return "MapStatistics [seed=" + seed + ", numFields=" + numFields + ", numConnections=" + numConnections + ", degreeDistribution="
+				+ Arrays.toString(degreeDistribution) + ", regionSizes=" + Arrays.toString(regionSizes) + ", diameter=" + diameter
+				+ ", exactDiameter=" + exactDiameter + ", numCrossSideConnections=" + numCrossSideConnections + "]";
+	}
+	
+	/**
+	 * A breadth first search on the connection index, that reuses it's arrays for every search.
+	 */
+	private static class DiameterSearch {
+		
+		private final ConnectionIndex connectionIndex;
+		private final int[] distances;
+		private final int[] queue;
+		
+		private int farthestId;
+		
+		public DiameterSearch(int numIds, ConnectionIndex connectionIndex) {
+			this.connectionIndex = connectionIndex;
+			distances = new int[numIds];
+			queue = new int[numIds];
+		}
+		
+		/**
+		 * Find the largest distance from the field to any reachable field (and remember the farthest field).
+		 */
+		public int findEccentricity(int startId) {
+			Arrays.fill(distances, -1);
+			int head = 0;
+			int tail = 0;
+			queue[tail++] = startId;
+			distances[startId] = 0;
+			farthestId = startId;
+			
+			while (head < tail) {
+				int id = queue[head++];
+				if (distances[id] > distances[farthestId]) {
+					farthestId = id;
+				}
+				
+				for (int i = 0; i < connectionIndex.getNumNeighbours(id); i++) {
+					int neighbour = connectionIndex.getNeighbourId(id, i);
+					if (distances[neighbour] == -1) {
+						distances[neighbour] = distances[id] + 1;
+						queue[tail++] = neighbour;
+					}
+				}
+			}
+			
+			return distances[farthestId];
+		}
+	}
+}
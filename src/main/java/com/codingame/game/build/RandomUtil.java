@@ -4,6 +4,8 @@ import java.util.Random;
 
 /**
  * Provides random functions and the random seed.
+ * 
+ * The static instance is used by the referee. To run multiple games concurrently, every game can use it's own instance instead.
  */
 public class RandomUtil {
 	
@@ -26,11 +28,11 @@ public class RandomUtil {
 	
 	private Random random;
 	
-	private RandomUtil(long seed) {
+	public RandomUtil(long seed) {
 		random = new Random(seed);
 	}
 	
-	private RandomUtil(Random random) {
+	public RandomUtil(Random random) {
 		this.random = random;
 	}
 	
@@ -0,0 +1,153 @@
+package com.codingame.game.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import com.codingame.game.util.Pair;
+
+/**
+ * An immutable index of the (bidirectional) connections between the fields of a map, that is build once when the map is created.
+ * 
+ * The neighbours of all fields are stored in a compressed sparse row (CSR) layout: the neighbour ids of the field with the id i
+ * are stored (sorted) in neighbourIds[neighbourOffsets[i]] to neighbourIds[neighbourOffsets[i + 1] - 1].
+ * 
+ * For small maps an additional bitset adjacency matrix is created, so a connection check is a single bit test. For large maps
+ * the matrix would grow quadratically, so the connection check is a binary search in the (sorted) neighbour ids instead.
+ */
+public class ConnectionIndex {
+	
+	/**
+	 * The maximum number of field ids for which a bitset adjacency matrix is created (the matrix needs numIds² / 8 bytes).
+	 */
+	public static final int ADJACENCY_MATRIX_MAX_FIELDS = 1024;
+	
+	private final int numIds;
+	
+	private final int[] neighbourOffsets;
+	private final int[] neighbourIds;
+	
+	private final long[] adjacencyMatrix; // null for large maps
+	private final int wordsPerRow;
+	
+	/**
+	 * @param numIds
+	 *        The number of field ids (the highest field id + 1)
+	 * 
+	 * @param connections
+	 *        The bidirectional connections between the fields (a connection can be contained in both directions)
+	 */
+	public ConnectionIndex(int numIds, Collection<Pair<Field, Field>> connections) {
+		this.numIds = numIds;
+		
+		// count the connections of every field (in both directions)
+		int[] degrees = new int[numIds];
+		for (Pair<Field, Field> connection : connections) {
+			degrees[connection.getKey().id]++;
+			degrees[connection.getValue().id]++;
+		}
+		
+		// fill the neighbour ids of every field into the rows
+		int[] offsets = new int[numIds + 1];
+		for (int i = 0; i < numIds; i++) {
+			offsets[i + 1] = offsets[i] + degrees[i];
+		}
+		int[] neighbours = new int[offsets[numIds]];
+		int[] fillPositions = Arrays.copyOf(offsets, numIds);
+		for (Pair<Field, Field> connection : connections) {
+			int id1 = connection.getKey().id;
+			int id2 = connection.getValue().id;
+			neighbours[fillPositions[id1]++] = id2;
+			neighbours[fillPositions[id2]++] = id1;
+		}
+		
+		// sort the rows and remove duplicates (if a connection was given in both directions)
+		neighbourOffsets = new int[numIds + 1];
+		int size = 0;
+		for (int i = 0; i < numIds; i++) {
+			neighbourOffsets[i] = size;
+			Arrays.sort(neighbours, offsets[i], offsets[i + 1]);
+			for (int j = offsets[i]; j < offsets[i + 1]; j++) {
+				if (j == offsets[i] || neighbours[j] != neighbours[j - 1]) {
+					neighbours[size++] = neighbours[j];
+				}
+			}
+		}
+		neighbourOffsets[numIds] = size;
+		neighbourIds = Arrays.copyOf(neighbours, size);
+		
+		if (numIds <= ADJACENCY_MATRIX_MAX_FIELDS) {
+			wordsPerRow = (numIds + 63) >>> 6;
+			adjacencyMatrix = new long[numIds * wordsPerRow];
+			for (int i = 0; i < numIds; i++) {
+				for (int j = neighbourOffsets[i]; j < neighbourOffsets[i + 1]; j++) {
+					int neighbour = neighbourIds[j];
+					adjacencyMatrix[i * wordsPerRow + (neighbour >>> 6)] |= 1L << neighbour;
+				}
+			}
+		}
+		else {
+			wordsPerRow = 0;
+			adjacencyMatrix = null;
+		}
+	}
+	
+	/**
+	 * Check whether two fields are connected directly. Unknown field ids are never connected.
+	 */
+	public boolean isConnected(int fieldId1, int fieldId2) {
+		if (!isValidId(fieldId1) || !isValidId(fieldId2)) {
+			return false;
+		}
+		
+		if (adjacencyMatrix != null) {
+			return (adjacencyMatrix[fieldId1 * wordsPerRow + (fieldId2 >>> 6)] & (1L << fieldId2)) != 0;
+		}
+		
+		return Arrays.binarySearch(neighbourIds, neighbourOffsets[fieldId1], neighbourOffsets[fieldId1 + 1], fieldId2) >= 0;
+	}
+	
+	/**
+	 * The number of fields that are connected to the field with the given id.
+	 */
+	public int getNumNeighbours(int fieldId) {
+		if (!isValidId(fieldId)) {
+			return 0;
+		}
+		return neighbourOffsets[fieldId + 1] - neighbourOffsets[fieldId];
+	}
+	
+	/**
+	 * Get the id of the index-th neighbour of a field (the neighbours are sorted by id), without creating a new array.
+	 */
+	public int getNeighbourId(int fieldId, int index) {
+		if (index < 0 || index >= getNumNeighbours(fieldId)) {
+			throw new IndexOutOfBoundsException("The field " + fieldId + " has no neighbour with the index " + index);
+		}
+		return neighbourIds[neighbourOffsets[fieldId] + index];
+	}
+	
+	/**
+	 * Get a copy of the (sorted) ids of all fields that are connected to the field with the given id.
+	 */
+	public int[] getNeighbourIds(int fieldId) {
+		if (!isValidId(fieldId)) {
+			return new int[0];
+		}
+		return Arrays.copyOfRange(neighbourIds, neighbourOffsets[fieldId], neighbourOffsets[fieldId + 1]);
+	}
+	
+	/**
+	 * The total number of (bidirectional) connections.
+	 */
+	public int getNumConnections() {
+		return neighbourIds.length / 2;
+	}
+	
+	public boolean isAdjacencyMatrixUsed() {
+		return adjacencyMatrix != null;
+	}
+	
+	private boolean isValidId(int fieldId) {
+		return fieldId >= 0 && fieldId < numIds;
+	}
+}
@@ -11,6 +11,8 @@ public class Field {
 	private int troops;
 	private Owner owner;
 	
+	private GameMap map; // the map that is notified about changes (a field can only belong to one map)
+	
 	public Field(int id) {
 		this.id = id;
 		owner = Owner.NEUTRAL;
@@ -22,7 +24,12 @@ public class Field {
 	}
 	
 	protected void setTroops(int troops) {
+		int previousTroops = this.troops;
 		this.troops = troops;
+		
+		if (map != null) {
+			map.onTroopsChanged(this, previousTroops);
+		}
 	}
 	
 	public Owner getOwner() {
@@ -30,7 +37,28 @@ public class Field {
 	}
 	
 	protected void setOwner(Owner owner) {
+		Owner previousOwner = this.owner;
 		this.owner = owner;
+		
+		if (map != null) {
+			map.onOwnerChanged(this, previousOwner);
+		}
+	}
+	
+	/**
+	 * Restore the state of the field from a snapshot (without notifying the map).
+	 */
+	void restore(int troops, Owner owner) {
+		this.troops = troops;
+		this.owner = owner;
+	}
+	
+	GameMap getMap() {
+		return map;
+	}
+	
+	void setMap(GameMap map) {
+		this.map = map;
 	}
 	
 	@Override
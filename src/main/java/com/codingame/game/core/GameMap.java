@@ -1,13 +1,16 @@
 package com.codingame.game.core;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 import com.codingame.game.Action;
 import com.codingame.game.Action.Type;
+import com.codingame.game.build.RandomUtil;
 import com.codingame.game.util.Pair;
 import com.codingame.game.view.MovementEvents;
 import com.codingame.game.view.MovementEvents.MovementType;
@@ -25,12 +28,50 @@ public class GameMap {
 	public static final int TROOPS_BONUS_FIRST_DEPLOYMENT = 10;
 	public static final float TROOPS_BONUS_FIELD_COUNT = 0.334f; // a bit more than 1/3 to prevent rounding issues because of the float precision
 	
+	private static final Owner[] OWNERS = Owner.values();
+	
 	public final Set<Field> fields;
 	public final Set<Pair<Field, Field>> connections;
 	public final Set<Region> regions;
 	private final Set<PickEvent> picksPerformed;
 	private final MovementEvents moveEvents;
 	
+	/**
+	 * The fields indexed by their id (dense, because the ids are given from 0 to n-1), to find a field in constant time.
+	 * Ids without a field (if the ids are not continuous) are mapped to null.
+	 */
+	private final Field[] fieldsById;
+	private final ConnectionIndex connectionIndex;
+	
+	/**
+	 * The regions (sorted by id) and the index of the region (in indexedRegions) for every field id (or -1 if the field is in no region)
+	 * and for every region id (or -1 if there is no region with this id).
+	 */
+	private final Region[] indexedRegions;
+	private final int[] regionIndexByFieldId;
+	private final int[] regionIndexByRegionId;
+	
+	//*****************************************************************************************************
+	//*** running counters (indexed by Owner.ordinal()), that are updated whenever a field changes
+	//*****************************************************************************************************
+	
+	private final int[] numFieldsPerOwner;
+	private final int[] numTroopsPerOwner;
+	private final int[][] numRegionFieldsPerOwner; // indexed by region index and owner
+	private final int[] regionBonusTroopsPerOwner; // the bonus troops of all regions that are conquered by an owner
+	
+	/**
+	 * The zobrist hash of the state of all fields (the xor of the keys of the owner and troops of every field).
+	 */
+	private long fieldsHash;
+	
+	/**
+	 * The ids of the fields that were changed since the changes were reset (every field is contained only once).
+	 */
+	private final boolean[] fieldChanged;
+	private final int[] changedFieldIds;
+	private int numChangedFields;
+	
 	protected StartingFieldChoice startingFieldChoice;
 	
 	/**
@@ -48,15 +89,191 @@ public class GameMap {
 	private int sparedDeploymentTroopsPlayer2;
 	
 	public GameMap(Set<Field> fields, Set<Pair<Field, Field>> connections, Set<Region> regions) {
+		this(fields, connections, regions, RandomUtil.getInstance());
+	}
+	
+	/**
+	 * @param random
+	 *        The random instance of the game, that is used to choose the random starting fields
+	 */
+	public GameMap(Set<Field> fields, Set<Pair<Field, Field>> connections, Set<Region> regions, RandomUtil random) {
 		this.fields = fields;
 		this.connections = connections;
 		this.regions = regions;
 		
-		startingFieldChoice = new StartingFieldChoice(fields.size());
+		fieldsById = createFieldIndex(fields);
+		connectionIndex = new ConnectionIndex(fieldsById.length, connections);
+		indexedRegions = regions.stream().sorted(Comparator.comparingInt((Region region) -> region.id)).toArray(Region[]::new);
+		regionIndexByFieldId = createRegionIndex(fieldsById.length, indexedRegions);
+		regionIndexByRegionId = createRegionIdIndex(indexedRegions);
+		
+		numFieldsPerOwner = new int[Owner.values().length];
+		numTroopsPerOwner = new int[Owner.values().length];
+		numRegionFieldsPerOwner = new int[indexedRegions.length][Owner.values().length];
+		regionBonusTroopsPerOwner = new int[Owner.values().length];
+		initializeCounters();
+		
+		fieldChanged = new boolean[fieldsById.length];
+		changedFieldIds = new int[fieldsById.length];
+		
+		startingFieldChoice = new StartingFieldChoice(fields.size(), random);
 		moveEvents = new MovementEvents();
 		picksPerformed = new HashSet<PickEvent>();
 	}
 	
+	private static Field[] createFieldIndex(Set<Field> fields) {
+		int maxId = -1;
+		for (Field field : fields) {
+			if (field.id < 0) {
+				throw new IllegalArgumentException("Field ids must not be negative, but was " + field.id);
+			}
+			maxId = Math.max(maxId, field.id);
+		}
+		
+		Field[] index = new Field[maxId + 1];
+		for (Field field : fields) {
+			index[field.id] = field;
+		}
+		
+		return index;
+	}
+	
+	private static int[] createRegionIndex(int numFieldIds, Region[] indexedRegions) {
+		int[] index = new int[numFieldIds];
+		Arrays.fill(index, -1);
+		for (int i = 0; i < indexedRegions.length; i++) {
+			for (Field field : indexedRegions[i].fields) {
+				if (field.id >= 0 && field.id < numFieldIds) {
+					index[field.id] = i;
+				}
+			}
+		}
+		
+		return index;
+	}
+	
+	private static int[] createRegionIdIndex(Region[] indexedRegions) {
+		int maxId = -1;
+		for (Region region : indexedRegions) {
+			maxId = Math.max(maxId, region.id);
+		}
+		
+		int[] index = new int[maxId + 1];
+		Arrays.fill(index, -1);
+		for (int i = 0; i < indexedRegions.length; i++) {
+			if (indexedRegions[i].id >= 0) {
+				index[indexedRegions[i].id] = i;
+			}
+		}
+		
+		return index;
+	}
+	
+	private void initializeCounters() {
+		// the counters of a map are only updated by the changes of it's own fields, so a field must not be shared between maps
+		for (Field field : fields) {
+			if (field.getMap() != null && field.getMap() != this) {
+				throw new IllegalArgumentException("The field " + field.id + " already belongs to another map");
+			}
+		}
+		
+		for (Field field : fields) {
+			field.setMap(this);
+			
+			numFieldsPerOwner[field.getOwner().ordinal()]++;
+			numTroopsPerOwner[field.getOwner().ordinal()] += field.getTroops();
+			fieldsHash ^= ZobristKeys.fieldKey(field.id, field.getOwner(), field.getTroops());
+			
+			int regionIndex = getRegionIndex(field.id);
+			if (regionIndex != -1) {
+				numRegionFieldsPerOwner[regionIndex][field.getOwner().ordinal()]++;
+			}
+		}
+		
+		for (int i = 0; i < indexedRegions.length; i++) {
+			for (Owner owner : Owner.values()) {
+				if (isRegionConqueredBy(i, owner)) {
+					regionBonusTroopsPerOwner[owner.ordinal()] += indexedRegions[i].bonusTroops;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Called by a field of this map, after the number of troops was changed.
+	 */
+	void onTroopsChanged(Field field, int previousTroops) {
+		numTroopsPerOwner[field.getOwner().ordinal()] += field.getTroops() - previousTroops;
+		fieldsHash ^= ZobristKeys.fieldKey(field.id, field.getOwner(), previousTroops) ^ ZobristKeys.fieldKey(field.id, field.getOwner(), field.getTroops());
+		markFieldChanged(field.id);
+	}
+	
+	/**
+	 * Called by a field of this map, after the owner was changed.
+	 */
+	void onOwnerChanged(Field field, Owner previousOwner) {
+		Owner owner = field.getOwner();
+		if (owner == previousOwner) {
+			return;
+		}
+		
+		numFieldsPerOwner[previousOwner.ordinal()]--;
+		numFieldsPerOwner[owner.ordinal()]++;
+		numTroopsPerOwner[previousOwner.ordinal()] -= field.getTroops();
+		numTroopsPerOwner[owner.ordinal()] += field.getTroops();
+		fieldsHash ^= ZobristKeys.fieldKey(field.id, previousOwner, field.getTroops()) ^ ZobristKeys.fieldKey(field.id, owner, field.getTroops());
+		markFieldChanged(field.id);
+		
+		int regionIndex = getRegionIndex(field.id);
+		if (regionIndex != -1) {
+			int bonusTroops = indexedRegions[regionIndex].bonusTroops;
+			
+			if (isRegionConqueredBy(regionIndex, previousOwner)) {
+				regionBonusTroopsPerOwner[previousOwner.ordinal()] -= bonusTroops;
+			}
+			numRegionFieldsPerOwner[regionIndex][previousOwner.ordinal()]--;
+			numRegionFieldsPerOwner[regionIndex][owner.ordinal()]++;
+			if (isRegionConqueredBy(regionIndex, owner)) {
+				regionBonusTroopsPerOwner[owner.ordinal()] += bonusTroops;
+			}
+		}
+	}
+	
+	private boolean isRegionConqueredBy(int regionIndex, Owner owner) {
+		return numRegionFieldsPerOwner[regionIndex][owner.ordinal()] == indexedRegions[regionIndex].fields.size();
+	}
+	
+	private void markFieldChanged(int fieldId) {
+		if (!fieldChanged[fieldId]) {
+			fieldChanged[fieldId] = true;
+			changedFieldIds[numChangedFields++] = fieldId;
+		}
+	}
+	
+	/**
+	 * The number of fields whose owner or troops were changed since {@link #resetChangedFields()} was called.
+	 */
+	public int getNumChangedFields() {
+		return numChangedFields;
+	}
+	
+	/**
+	 * The id of the index-th changed field (in the order in which the fields were changed first).
+	 */
+	public int getChangedFieldId(int index) {
+		if (index < 0 || index >= numChangedFields) {
+			throw new IndexOutOfBoundsException("There is no changed field with the index " + index);
+		}
+		return changedFieldIds[index];
+	}
+	
+	public void resetChangedFields() {
+		for (int i = 0; i < numChangedFields; i++) {
+			fieldChanged[changedFieldIds[i]] = false;
+		}
+		numChangedFields = 0;
+	}
+	
 	public void resetEvents() {
 		moveEvents.reset();
 		picksPerformed.clear();
@@ -83,11 +300,11 @@ public class GameMap {
 				//*** execute the fight between the moving units first
 				//*****************************************************************************************************
 				
-				// we already validated, that these fields exist (in the Referee), so calling get without isPresent won't lead to an NPE
-				Field field1 = getFieldById(action1.getSourceId()).get();
-				Field field12 = getFieldById(action1.getTargetId()).get();
-				Field field2 = getFieldById(action2.getSourceId()).get();
-				Field field22 = getFieldById(action2.getTargetId()).get();
+				// we already validated, that these fields exist (in the Referee), so the indexed fields are not null
+				Field field1 = fieldsById[action1.getSourceId()];
+				Field field12 = fieldsById[action1.getTargetId()];
+				Field field2 = fieldsById[action2.getSourceId()];
+				Field field22 = fieldsById[action2.getTargetId()];
 				
 				// all troops fight, because those that would not attack would defend (all are handled as attackers with 60% kill rate)
 				int attackingTroops1 = Math.min(field1.getTroops(), action1.getNumTroops());
@@ -230,15 +447,15 @@ public class GameMap {
 	}
 	
 	private void executeDeployment(Action action) {
-		Field targetField = getFieldById(action.getTargetId()).get(); // we already validated that this field exists
+		Field targetField = fieldsById[action.getTargetId()]; // we already validated that this field exists
 		targetField.setTroops(targetField.getTroops() + action.getNumTroops());
 	}
 	
 	private void executeMovement(Action action) {
 		if (isAttack(action)) {
-			// we already validated, that these fields exist (in the Referee), so calling get without isPresent won't lead to an NPE
-			Field attackingField = getFieldById(action.getSourceId()).get();
-			Field defendingField = getFieldById(action.getTargetId()).get();
+			// we already validated, that these fields exist (in the Referee), so the indexed fields are not null
+			Field attackingField = fieldsById[action.getSourceId()];
+			Field defendingField = fieldsById[action.getTargetId()];
 			
 			// the attacking field could have already lost troops, so the number of attackers might be limited
 			int attackingTroops = Math.min(action.getNumTroops(), attackingField.getTroops());
@@ -282,8 +499,8 @@ public class GameMap {
 		}
 		else {
 			// no attack - just move the troops
-			Field sourceField = getFieldById(action.getSourceId()).get();
-			Field targetField = getFieldById(action.getTargetId()).get();
+			Field sourceField = fieldsById[action.getSourceId()];
+			Field targetField = fieldsById[action.getTargetId()];
 			
 			int movedTroops = Math.min(sourceField.getTroops(), action.getNumTroops());
 			
@@ -297,11 +514,11 @@ public class GameMap {
 	}
 	
 	private boolean isAttack(Action action) {
-		return getFieldById(action.getSourceId()).get().getOwner() != getFieldById(action.getTargetId()).get().getOwner();
+		return fieldsById[action.getSourceId()].getOwner() != fieldsById[action.getTargetId()].getOwner();
 	}
 	
 	private void pickStartingField(Action action) {
-		Field field = getFieldById(action.getTargetId()).get();
+		Field field = fieldsById[action.getTargetId()];
 		field.setOwner(action.getOwner());
 		field.setTroops(1);
 
@@ -319,7 +536,7 @@ public class GameMap {
 		
 		// choose the next free field from the list
 		do {
-			field = getFieldById(startingFields.get(nextStartingFieldIndex)).get();
+			field = fieldsById[startingFields.get(nextStartingFieldIndex)];
 			nextStartingFieldIndex++;
 		} while (field.getOwner() != Owner.NEUTRAL);
 		
@@ -333,11 +550,8 @@ public class GameMap {
 	}
 	
 	public int calculateDeployableTroops(Owner player, boolean firstDeployment) {
-		List<Field> conqueredFields = fields.stream().filter(field -> field.getOwner() == player).collect(Collectors.toList());
-		List<Region> conqueredRegions = regions.stream().filter(region -> region.isConqueredBy(player)).collect(Collectors.toList());
-		
-		int fieldBonusTroops = (int) (conqueredFields.size() * TROOPS_BONUS_FIELD_COUNT);
-		int regionBonusTroops = conqueredRegions.stream().mapToInt(Region::getBonusTroops).sum();
+		int fieldBonusTroops = (int) (numFieldsPerOwner[player.ordinal()] * TROOPS_BONUS_FIELD_COUNT);
+		int regionBonusTroops = regionBonusTroopsPerOwner[player.ordinal()];
 		int roundingLossBonusTroops = player == Owner.PLAYER_1 ? (int) Math.floor(roundingLossPlayer1) : (int) Math.floor(roundingLossPlayer2);
 		int firstDeploymentBonusTroops = firstDeployment ? TROOPS_BONUS_FIRST_DEPLOYMENT : 0;
 		int sparedDeploymentBonusTroops = player == Owner.PLAYER_1 ? sparedDeploymentTroopsPlayer1 : sparedDeploymentTroopsPlayer2;
@@ -379,27 +593,179 @@ public class GameMap {
 	}
 	
 	public Optional<Field> getFieldById(int id) {
-		return fields.stream().filter(field -> field.id == id).findFirst();
+		if (id < 0 || id >= fieldsById.length) {
+			return Optional.empty();
+		}
+		return Optional.ofNullable(fieldsById[id]);
 	}
 	
 	public Optional<Region> getRegionForFieldById(int fieldId) {
-		return regions.stream().filter(r -> r.fields.stream().anyMatch(f -> f.id == fieldId)).findFirst();
+		int regionIndex = getRegionIndex(fieldId);
+		if (regionIndex == -1) {
+			return Optional.empty();
+		}
+		return Optional.of(indexedRegions[regionIndex]);
+	}
+	
+	public boolean isFieldsInSameRegion(int fieldId1, int fieldId2) {
+		int regionIndex = getRegionIndex(fieldId1);
+		return regionIndex != -1 && regionIndex == getRegionIndex(fieldId2);
+	}
+	
+	private int getRegionIndex(int fieldId) {
+		if (fieldId < 0 || fieldId >= regionIndexByFieldId.length) {
+			return -1;
+		}
+		return regionIndexByFieldId[fieldId];
 	}
 	
 	public boolean isFieldsConnected(int sourceId, int targetId) {
-		return connections.stream().anyMatch(pair -> pair.getKey().id == sourceId && pair.getValue().id == targetId || //
-				pair.getKey().id == targetId && pair.getValue().id == sourceId);
+		return connectionIndex.isConnected(sourceId, targetId);
+	}
+	
+	/**
+	 * Get all fields that are connected to the field with the given id (sorted by id).
+	 */
+	public List<Field> getConnectedFields(int fieldId) {
+		int numNeighbours = connectionIndex.getNumNeighbours(fieldId);
+		List<Field> connectedFields = new ArrayList<>(numNeighbours);
+		for (int i = 0; i < numNeighbours; i++) {
+			connectedFields.add(fieldsById[connectionIndex.getNeighbourId(fieldId, i)]);
+		}
+		return connectedFields;
+	}
+	
+	public ConnectionIndex getConnectionIndex() {
+		return connectionIndex;
 	}
 	
 	public int getNumTroopsControlledByPlayer(Owner player) {
-		return fields.stream().filter(field -> field.getOwner() == player).mapToInt(Field::getTroops).sum();
+		return numTroopsPerOwner[player.ordinal()];
 	}
 	
 	public int getNumFieldsControlledByPlayer(Owner player) {
-		return (int) fields.stream().filter(field -> field.getOwner() == player).count();
+		return numFieldsPerOwner[player.ordinal()];
+	}
+	
+	/**
+	 * Same as {@link Region#isConqueredBy(Owner)}, but uses the counters of this map instead of checking all fields of the region.
+	 */
+	public boolean isRegionConqueredBy(Region region, Owner owner) {
+		int regionIndex = getRegionIndex(region);
+		if (regionIndex == -1) {
+			return region.isConqueredBy(owner); // the region is not part of this map
+		}
+		return isRegionConqueredBy(regionIndex, owner);
+	}
+	
+	private int getRegionIndex(Region region) {
+		if (region.id < 0 || region.id >= regionIndexByRegionId.length) {
+			return -1;
+		}
+		int regionIndex = regionIndexByRegionId[region.id];
+		return regionIndex != -1 && indexedRegions[regionIndex] == region ? regionIndex : -1;
 	}
 	
 	public StartingFieldChoice getStartingFieldChoice() {
 		return startingFieldChoice;
 	}
+	
+	/**
+	 * A 64 bit zobrist hash of the current position, that can be used as key in a transposition table.
+	 * 
+	 * The hash covers the owner and troops of every field (updated whenever a field changes), the turn type, the rounding losses,
+	 * the spared deployment troops and the starting fields that are left.
+	 */
+	public long getZobristHash(TurnType turnType) {
+		return fieldsHash ^ //
+				ZobristKeys.turnTypeKey(turnType) ^ //
+				ZobristKeys.roundingLossKey(Owner.PLAYER_1, roundingLossPlayer1) ^ //
+				ZobristKeys.roundingLossKey(Owner.PLAYER_2, roundingLossPlayer2) ^ //
+				ZobristKeys.sparedTroopsKey(Owner.PLAYER_1, sparedDeploymentTroopsPlayer1) ^ //
+				ZobristKeys.sparedTroopsKey(Owner.PLAYER_2, sparedDeploymentTroopsPlayer2) ^ //
+				ZobristKeys.startingFieldsKey(Owner.PLAYER_1, startingFieldChoice.getStartingFieldsLeft(Owner.PLAYER_1)) ^ //
+				ZobristKeys.startingFieldsKey(Owner.PLAYER_2, startingFieldChoice.getStartingFieldsLeft(Owner.PLAYER_2));
+	}
+	
+	//*****************************************************************************************************
+	//*** snapshots
+	//*****************************************************************************************************
+	
+	/**
+	 * Create a new snapshot of the current state of the map.
+	 */
+	public GameMapSnapshot createSnapshot() {
+		GameMapSnapshot snapshot = new GameMapSnapshot(this, fieldsById.length, indexedRegions.length);
+		saveSnapshot(snapshot);
+		return snapshot;
+	}
+	
+	/**
+	 * Save the current state of the map into an existing snapshot (that was created by this map), without creating new objects.
+	 */
+	public void saveSnapshot(GameMapSnapshot snapshot) {
+		checkSnapshotCompatible(snapshot);
+		
+		for (Field field : fieldsById) {
+			if (field != null) {
+				snapshot.troops[field.id] = field.getTroops();
+				snapshot.owners[field.id] = (byte) field.getOwner().ordinal();
+			}
+		}
+		
+		snapshot.fieldsHash = fieldsHash;
+		snapshot.roundingLossPlayer1 = roundingLossPlayer1;
+		snapshot.roundingLossPlayer2 = roundingLossPlayer2;
+		snapshot.sparedDeploymentTroopsPlayer1 = sparedDeploymentTroopsPlayer1;
+		snapshot.sparedDeploymentTroopsPlayer2 = sparedDeploymentTroopsPlayer2;
+		snapshot.startingFieldsLeftPlayer1 = startingFieldChoice.getStartingFieldsLeft(Owner.PLAYER_1);
+		snapshot.startingFieldsLeftPlayer2 = startingFieldChoice.getStartingFieldsLeft(Owner.PLAYER_2);
+		
+		System.arraycopy(numFieldsPerOwner, 0, snapshot.numFieldsPerOwner, 0, numFieldsPerOwner.length);
+		System.arraycopy(numTroopsPerOwner, 0, snapshot.numTroopsPerOwner, 0, numTroopsPerOwner.length);
+		System.arraycopy(regionBonusTroopsPerOwner, 0, snapshot.regionBonusTroopsPerOwner, 0, regionBonusTroopsPerOwner.length);
+		for (int i = 0; i < numRegionFieldsPerOwner.length; i++) {
+			System.arraycopy(numRegionFieldsPerOwner[i], 0, snapshot.numRegionFieldsPerOwner[i], 0, numRegionFieldsPerOwner[i].length);
+		}
+	}
+	
+	/**
+	 * Restore the state of the map from a snapshot (that was created by this map). The events of the last turn are reset.
+	 */
+	public void restoreSnapshot(GameMapSnapshot snapshot) {
+		checkSnapshotCompatible(snapshot);
+		
+		for (Field field : fieldsById) {
+			if (field != null) {
+				Owner owner = OWNERS[snapshot.owners[field.id]];
+				if (field.getTroops() != snapshot.troops[field.id] || field.getOwner() != owner) {
+					markFieldChanged(field.id);
+				}
+				field.restore(snapshot.troops[field.id], owner);
+			}
+		}
+		
+		fieldsHash = snapshot.fieldsHash;
+		roundingLossPlayer1 = snapshot.roundingLossPlayer1;
+		roundingLossPlayer2 = snapshot.roundingLossPlayer2;
+		sparedDeploymentTroopsPlayer1 = snapshot.sparedDeploymentTroopsPlayer1;
+		sparedDeploymentTroopsPlayer2 = snapshot.sparedDeploymentTroopsPlayer2;
+		startingFieldChoice.setStartingFieldsLeft(Owner.PLAYER_1, snapshot.startingFieldsLeftPlayer1);
+		startingFieldChoice.setStartingFieldsLeft(Owner.PLAYER_2, snapshot.startingFieldsLeftPlayer2);
+		
+		System.arraycopy(snapshot.numFieldsPerOwner, 0, numFieldsPerOwner, 0, numFieldsPerOwner.length);
+		System.arraycopy(snapshot.numTroopsPerOwner, 0, numTroopsPerOwner, 0, numTroopsPerOwner.length);
+		System.arraycopy(snapshot.regionBonusTroopsPerOwner, 0, regionBonusTroopsPerOwner, 0, regionBonusTroopsPerOwner.length);
+		for (int i = 0; i < numRegionFieldsPerOwner.length; i++) {
+			System.arraycopy(snapshot.numRegionFieldsPerOwner[i], 0, numRegionFieldsPerOwner[i], 0, numRegionFieldsPerOwner[i].length);
+		}
+		
+		resetEvents();
+	}
+	
+	private void checkSnapshotCompatible(GameMapSnapshot snapshot) {
+		if (!snapshot.isCreatedBy(this)) {
+			throw new IllegalArgumentException("The snapshot was not created by this map");
+		}
+	}
 }
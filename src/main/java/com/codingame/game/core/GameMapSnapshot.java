@@ -0,0 +1,45 @@
+package com.codingame.game.core;
+
+/**
+ * A snapshot of the mutable state of a {@link GameMap}, packed into primitive arrays (indexed by the field ids).
+ * 
+ * A snapshot can be reused for many saves, so branching from a position doesn't need to create any objects.
+ */
+public class GameMapSnapshot {
+	
+	final GameMap map; // the map that created the snapshot (a snapshot of another map with the same layout would still be wrong)
+	
+	final int[] troops;
+	final byte[] owners; // the ordinal of the owner
+	
+	long fieldsHash;
+	float roundingLossPlayer1;
+	float roundingLossPlayer2;
+	int sparedDeploymentTroopsPlayer1;
+	int sparedDeploymentTroopsPlayer2;
+	int startingFieldsLeftPlayer1;
+	int startingFieldsLeftPlayer2;
+	
+	// the running counters of the map, so they don't need to be re-calculated
+	final int[] numFieldsPerOwner;
+	final int[] numTroopsPerOwner;
+	final int[][] numRegionFieldsPerOwner;
+	final int[] regionBonusTroopsPerOwner;
+	
+	GameMapSnapshot(GameMap map, int numFieldIds, int numRegions) {
+		this.map = map;
+		int numOwners = Owner.values().length;
+		
+		troops = new int[numFieldIds];
+		owners = new byte[numFieldIds];
+		
+		numFieldsPerOwner = new int[numOwners];
+		numTroopsPerOwner = new int[numOwners];
+		numRegionFieldsPerOwner = new int[numRegions][numOwners];
+		regionBonusTroopsPerOwner = new int[numOwners];
+	}
+	
+	boolean isCreatedBy(GameMap map) {
+		return this.map == map;
+	}
+}
@@ -2,6 +2,7 @@ package com.codingame.game.core;
 
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.codingame.game.util.Vector2D;
 
@@ -14,15 +15,21 @@ public class Region {
 	public final int bonusTroops;
 	public final int id;
 	
-	private static int REGION_ID_CNT = 0;
+	private static final AtomicInteger REGION_ID_CNT = new AtomicInteger();
 	
 	// TODO maybe add a color or something to identify the region on the map
 	
 	public Region(Set<Field> fields, int bonusTroops) {
+		this(REGION_ID_CNT.getAndIncrement(), fields, bonusTroops); // TODO find better names
+	}
+	
+	/**
+	 * Create a region with a given id (instead of the global id counter), so the ids of a map don't depend on other maps that were created before.
+	 */
+	public Region(int id, Set<Field> fields, int bonusTroops) {
 		this.fields = fields;
 		this.bonusTroops = bonusTroops;
-		
-		this.id = REGION_ID_CNT++; // TODO find better names
+		this.id = id;
 	}
 	
 	public boolean isConqueredBy(Owner owner) {
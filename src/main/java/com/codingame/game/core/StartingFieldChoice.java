@@ -26,8 +26,15 @@ public class StartingFieldChoice {
 	private int numFields;
 	private int numStartingFields;
 	
+	private RandomUtil random;
+	
 	public StartingFieldChoice(int numFields) {
+		this(numFields, RandomUtil.getInstance());
+	}
+	
+	public StartingFieldChoice(int numFields, RandomUtil random) {
 		this.numFields = numFields;
+		this.random = random;
 		player1PriorizedMaxFieldId = numFields / 2 - 1; // number of fields has to be even (the map is symmetric)
 		
 		numStartingFields = calculateNumStartingFields(numFields);
@@ -46,7 +53,6 @@ public class StartingFieldChoice {
 	private List<Pair<Integer, Integer>> chooseRandomStartingFields() {
 		List<Pair<Integer, Integer>> randomStartingFields = new ArrayList<>();
 		final int halfFields = numFields / 2;
-		RandomUtil random = RandomUtil.getInstance();
 		
 		boolean[] fieldChosen = new boolean[halfFields];
 		
@@ -86,6 +92,10 @@ public class StartingFieldChoice {
 		startingFieldsLeft.put(owner, startingFieldsLeft.get(owner) - 1);
 	}
 	
+	void setStartingFieldsLeft(Owner owner, int startingFields) {
+		startingFieldsLeft.put(owner, startingFields);
+	}
+	
 	public List<Integer> getStartingFieldIdsForPlayer(Owner owner) {
 		if (owner == Owner.PLAYER_1) {
 			return randomStartingFields.stream().map(Pair::getKey).collect(Collectors.toList());
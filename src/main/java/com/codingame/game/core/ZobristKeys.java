@@ -0,0 +1,48 @@
+package com.codingame.game.core;
+
+/**
+ * The keys for the zobrist hash of a {@link GameMap}.
+ * 
+ * Instead of a table with random keys (that would need a maximum number of troops per field), the keys are calculated by mixing the
+ * values with the SplitMix64 function. The function is a bijection, so different values always lead to different keys.
+ */
+class ZobristKeys {
+	
+	private static final long FIELD_SEED = 0x3C6EF372FE94F82BL;
+	private static final long TURN_TYPE_SEED = 0xA54FF53A5F1D36F1L;
+	private static final long ROUNDING_LOSS_SEED = 0x510E527FADE682D1L;
+	private static final long SPARED_TROOPS_SEED = 0x9B05688C2B3E6C1FL;
+	private static final long STARTING_FIELDS_SEED = 0x1F83D9ABFB41BD6BL;
+	
+	private ZobristKeys() {}
+	
+	public static long fieldKey(int fieldId, Owner owner, int troops) {
+		return mix(FIELD_SEED ^ ((long) fieldId << 34 | (long) owner.ordinal() << 32 | (troops & 0xFFFFFFFFL)));
+	}
+	
+	public static long turnTypeKey(TurnType turnType) {
+		return mix(TURN_TYPE_SEED ^ turnType.ordinal());
+	}
+	
+	public static long roundingLossKey(Owner owner, float roundingLoss) {
+		return mix(ROUNDING_LOSS_SEED ^ ((long) owner.ordinal() << 32 | (Float.floatToIntBits(roundingLoss) & 0xFFFFFFFFL)));
+	}
+	
+	public static long sparedTroopsKey(Owner owner, int sparedTroops) {
+		return mix(SPARED_TROOPS_SEED ^ ((long) owner.ordinal() << 32 | (sparedTroops & 0xFFFFFFFFL)));
+	}
+	
+	public static long startingFieldsKey(Owner owner, int startingFieldsLeft) {
+		return mix(STARTING_FIELDS_SEED ^ ((long) owner.ordinal() << 32 | (startingFieldsLeft & 0xFFFFFFFFL)));
+	}
+	
+	/**
+	 * The SplitMix64 finalizer (see http://xorshift.di.unimi.it/splitmix64.c)
+	 */
+	private static long mix(long z) {
+		z += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
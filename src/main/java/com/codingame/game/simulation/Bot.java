@@ -0,0 +1,19 @@
+package com.codingame.game.simulation;
+
+import java.util.List;
+
+import com.codingame.game.Action;
+
+/**
+ * A bot that is played in-process by the {@link GameSimulator}.
+ */
+@FunctionalInterface
+public interface Bot {
+	
+	/**
+	 * Choose the actions for the current turn.
+	 * 
+	 * NOTE: The state object is reused in the following turns, so it must not be stored by the bot.
+	 */
+	public List<Action> getActions(GameState state);
+}
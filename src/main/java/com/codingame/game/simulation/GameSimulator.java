@@ -0,0 +1,137 @@
+package com.codingame.game.simulation;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codingame.game.Action;
+import com.codingame.game.GameRules;
+import com.codingame.game.InvalidActionException;
+import com.codingame.game.League;
+import com.codingame.game.Referee;
+import com.codingame.game.build.MapGenerator;
+import com.codingame.game.build.RandomUtil;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.TurnType;
+
+/**
+ * Simulates games in-process (without the game engine, processes and any input or output), using the same rules as the
+ * {@link Referee}. Used to play many games fast, e.g. to tune bots.
+ */
+public class GameSimulator {
+	
+	private final League league;
+	private int maxTurns = Referee.MAX_TURNS;
+	
+	public GameSimulator(League league) {
+		this.league = league;
+	}
+	
+	/**
+	 * Generate the map from the seed (the same map the referee would generate with this seed) and simulate the game.
+	 * 
+	 * The game uses it's own random instance, so multiple games can be simulated concurrently (if the bots are thread safe).
+	 */
+	public SimulationResult simulate(long seed, Bot bot1, Bot bot2) {
+		GameMap map = MapGenerator.generateMap(new RandomUtil(seed)).getKey();
+		
+		return simulate(map, bot1, bot2);
+	}
+	
+	/**
+	 * Simulate a game on the given map. The map is changed by the simulation.
+	 */
+	public SimulationResult simulate(GameMap map, Bot bot1, Bot bot2) {
+		TurnType turnType = TurnType.CHOOSE_STARTING_FIELDS;
+		boolean firstDeployment = true;
+		
+		GameState state1 = new GameState(map, Owner.PLAYER_1);
+		GameState state2 = new GameState(map, Owner.PLAYER_2);
+		List<Action> actions1 = new ArrayList<>();
+		List<Action> actions2 = new ArrayList<>();
+		
+		int scorePlayer1 = 0;
+		int scorePlayer2 = 0;
+		
+		for (int turn = 1; turn <= maxTurns; turn++) {
+			map.resetEvents();
+			
+			actions1.clear();
+			actions2.clear();
+			String invalidActionMessage1 = null;
+			String invalidActionMessage2 = null;
+			
+			// the players only take a turn if there are starting fields left to choose (in all other turn types both players take a turn)
+			if (GameRules.isPlayerActive(map, turnType, Owner.PLAYER_1)) {
+				state1.update(turn, turnType, firstDeployment);
+				invalidActionMessage1 = getActions(bot1, state1, actions1, map, turnType, firstDeployment);
+			}
+			if (GameRules.isPlayerActive(map, turnType, Owner.PLAYER_2)) {
+				state2.update(turn, turnType, firstDeployment);
+				invalidActionMessage2 = getActions(bot2, state2, actions2, map, turnType, firstDeployment);
+			}
+			
+			// the game ends here, if a player used an invalid action (the player is disqualified)
+			if (invalidActionMessage1 != null || invalidActionMessage2 != null) {
+				if (invalidActionMessage1 != null) {
+					scorePlayer1 = -1;
+				}
+				if (invalidActionMessage2 != null) {
+					scorePlayer2 = -1;
+				}
+				return new SimulationResult(scorePlayer1, scorePlayer2, turn, invalidActionMessage1, invalidActionMessage2);
+			}
+			
+			GameRules.prepareActions(actions1, Owner.PLAYER_1, turnType);
+			GameRules.prepareActions(actions2, Owner.PLAYER_2, turnType);
+			GameRules.executeActions(actions1, actions2, map, turnType, firstDeployment);
+			
+			if (turnType == TurnType.DEPLOY_TROOPS) {
+				firstDeployment = false;
+			}
+			turnType = GameRules.finishTurn(map, turnType);
+			
+			scorePlayer1 = map.getNumFieldsControlledByPlayer(Owner.PLAYER_1);
+			scorePlayer2 = map.getNumFieldsControlledByPlayer(Owner.PLAYER_2);
+			
+			if (GameRules.isGameOver(map, turnType)) {
+				return new SimulationResult(scorePlayer1, scorePlayer2, turn, null, null);
+			}
+		}
+		
+		return new SimulationResult(scorePlayer1, scorePlayer2, maxTurns, null, null);
+	}
+	
+	/**
+	 * Let the bot choose it's actions and validate them.
+	 * 
+	 * @return The message of the {@link InvalidActionException} if the actions are not valid (or null if they are valid)
+	 */
+	private String getActions(Bot bot, GameState state, List<Action> actions, GameMap map, TurnType turnType, boolean firstDeployment) {
+		try {
+			List<Action> botActions = bot.getActions(state);
+			if (botActions == null || botActions.isEmpty()) {
+				throw new InvalidActionException("No action was given");
+			}
+			
+			actions.addAll(botActions); // copy the actions, because the list is changed when the actions are executed
+			GameRules.validateActions(actions, state.getPlayer(), map, turnType, league, firstDeployment);
+			
+			return null;
+		}
+		catch (InvalidActionException e) {
+			return e.getMessage();
+		}
+	}
+	
+	public int getMaxTurns() {
+		return maxTurns;
+	}
+	
+	public void setMaxTurns(int maxTurns) {
+		if (maxTurns <= 0) {
+			throw new IllegalArgumentException("The maximum number of turns must be positive");
+		}
+		this.maxTurns = maxTurns;
+	}
+}
@@ -0,0 +1,156 @@
+package com.codingame.game.simulation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import com.codingame.game.core.ConnectionIndex;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.Region;
+import com.codingame.game.core.TurnType;
+
+/**
+ * The state of the game from the view of one player (the same information that is sent to the players input in a game).
+ * 
+ * The owners of the fields are given relative to the player (like in the input): 1 if the field is controlled by the player; 2 if
+ * it's controlled by the opponent player; 0 if it's neutral.
+ */
+public class GameState {
+	
+	public static final int OWNER_NEUTRAL = 0;
+	public static final int OWNER_PLAYER = 1;
+	public static final int OWNER_OPPONENT = 2;
+	
+	private final GameMap map;
+	private final Owner player;
+	private final List<Region> regions;
+	
+	private final int[] troops; // indexed by field id
+	private final int[] owners; // indexed by field id
+	
+	private int turn;
+	private TurnType turnType;
+	private int numFields;
+	private int numOpponentFields;
+	private int deployableTroops;
+	private int opponentDeployableTroops;
+	private int startingFieldsLeft;
+	private int opponentStartingFieldsLeft;
+	
+	protected GameState(GameMap map, Owner player) {
+		this.map = map;
+		this.player = player;
+		this.regions = map.regions.stream().sorted(Comparator.comparingInt((Region region) -> region.id)).collect(Collectors.toList());
+		
+		int numFieldIds = map.fields.stream().mapToInt(field -> field.id + 1).max().orElse(0);
+		troops = new int[numFieldIds];
+		owners = new int[numFieldIds];
+		Arrays.fill(owners, OWNER_NEUTRAL);
+	}
+	
+	/**
+	 * Update the state from the map (reusing the arrays, so no objects are created).
+	 */
+	protected void update(int turn, TurnType turnType, boolean firstDeployment) {
+		this.turn = turn;
+		this.turnType = turnType;
+		
+		Owner opponent = player.getOpponent();
+		numFields = map.getNumFieldsControlledByPlayer(player);
+		numOpponentFields = map.getNumFieldsControlledByPlayer(opponent);
+		deployableTroops = map.calculateDeployableTroops(player, firstDeployment);
+		opponentDeployableTroops = map.calculateDeployableTroops(opponent, firstDeployment);
+		startingFieldsLeft = map.getStartingFieldChoice().getStartingFieldsLeft(player);
+		opponentStartingFieldsLeft = map.getStartingFieldChoice().getStartingFieldsLeft(opponent);
+		
+		for (Field field : map.fields) {
+			troops[field.id] = field.getTroops();
+			if (field.getOwner() == player) {
+				owners[field.id] = OWNER_PLAYER;
+			}
+			else if (field.getOwner() == opponent) {
+				owners[field.id] = OWNER_OPPONENT;
+			}
+			else {
+				owners[field.id] = OWNER_NEUTRAL;
+			}
+		}
+	}
+	
+	public Owner getPlayer() {
+		return player;
+	}
+	
+	public int getTurn() {
+		return turn;
+	}
+	
+	public TurnType getTurnType() {
+		return turnType;
+	}
+	
+	/**
+	 * The number of field ids (the ids of the fields are 0 to numFieldIds - 1).
+	 */
+	public int getNumFieldIds() {
+		return troops.length;
+	}
+	
+	public int getTroops(int fieldId) {
+		return troops[fieldId];
+	}
+	
+	/**
+	 * The owner of the field, relative to the player ({@link #OWNER_NEUTRAL}, {@link #OWNER_PLAYER} or {@link #OWNER_OPPONENT}).
+	 */
+	public int getOwner(int fieldId) {
+		return owners[fieldId];
+	}
+	
+	public ConnectionIndex getConnections() {
+		return map.getConnectionIndex();
+	}
+	
+	public List<Region> getRegions() {
+		return regions;
+	}
+	
+	public Optional<Region> getRegionForField(int fieldId) {
+		return map.getRegionForFieldById(fieldId);
+	}
+	
+	/**
+	 * The player has the higher priority to choose starting fields in the lower part of the field ids (LOWER) or in the upper part (UPPER).
+	 */
+	public boolean isPriorityLower() {
+		return player == Owner.PLAYER_1;
+	}
+	
+	public int getNumFields() {
+		return numFields;
+	}
+	
+	public int getNumOpponentFields() {
+		return numOpponentFields;
+	}
+	
+	public int getDeployableTroops() {
+		return deployableTroops;
+	}
+	
+	public int getOpponentDeployableTroops() {
+		return opponentDeployableTroops;
+	}
+	
+	public int getStartingFieldsLeft() {
+		return startingFieldsLeft;
+	}
+	
+	public int getOpponentStartingFieldsLeft() {
+		return opponentStartingFieldsLeft;
+	}
+}
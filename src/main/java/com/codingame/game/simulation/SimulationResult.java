@@ -0,0 +1,82 @@
+package com.codingame.game.simulation;
+
+import java.util.Optional;
+
+import com.codingame.game.core.Owner;
+
+/**
+ * The result of a simulated game.
+ */
+public class SimulationResult {
+	
+	private final int scorePlayer1;
+	private final int scorePlayer2;
+	private final int turns;
+	private final String invalidActionMessagePlayer1;
+	private final String invalidActionMessagePlayer2;
+	
+	protected SimulationResult(int scorePlayer1, int scorePlayer2, int turns, String invalidActionMessagePlayer1, String invalidActionMessagePlayer2) {
+		this.scorePlayer1 = scorePlayer1;
+		this.scorePlayer2 = scorePlayer2;
+		this.turns = turns;
+		this.invalidActionMessagePlayer1 = invalidActionMessagePlayer1;
+		this.invalidActionMessagePlayer2 = invalidActionMessagePlayer2;
+	}
+	
+	/**
+	 * The winner of the game or {@link Owner#NEUTRAL} if the game is a draw.
+	 */
+	public Owner getWinner() {
+		if (scorePlayer1 > scorePlayer2) {
+			return Owner.PLAYER_1;
+		}
+		else if (scorePlayer1 < scorePlayer2) {
+			return Owner.PLAYER_2;
+		}
+		else {
+			return Owner.NEUTRAL;
+		}
+	}
+	
+	/**
+	 * The score of the player, like in the referee (the number of controlled fields or -1 if the player was disqualified).
+	 */
+	public int getScore(Owner player) {
+		if (player == Owner.PLAYER_1) {
+			return scorePlayer1;
+		}
+		else if (player == Owner.PLAYER_2) {
+			return scorePlayer2;
+		}
+		else {
+			throw new IllegalArgumentException("The parameter 'player' must be PLAYER_1 or PLAYER_2 but was " + player);
+		}
+	}
+	
+	/**
+	 * The number of played turns.
+	 */
+	public int getTurns() {
+		return turns;
+	}
+	
+	/**
+	 * The message of the invalid action, if the player was disqualified.
+	 */
+	public Optional<String> getInvalidActionMessage(Owner player) {
+		if (player == Owner.PLAYER_1) {
+			return Optional.ofNullable(invalidActionMessagePlayer1);
+		}
+		else if (player == Owner.PLAYER_2) {
+			return Optional.ofNullable(invalidActionMessagePlayer2);
+		}
+		else {
+			throw new IllegalArgumentException("The parameter 'player' must be PLAYER_1 or PLAYER_2 but was " + player);
+		}
+	}
+	
+	@Override
+	public String toString() {
+		return "SimulationResult [scorePlayer1=" + scorePlayer1 + ", scorePlayer2=" + scorePlayer2 + ", turns=" + turns + "]";
+	}
+}
@@ -0,0 +1,205 @@
+package com.codingame.game.simulation;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import com.codingame.game.core.Owner;
+import com.codingame.game.util.Pair;
+
+/**
+ * The aggregated results of a tournament: the win rates and elo ratings of the bots (in total and for every pairing).
+ * 
+ * The elo ratings are updated after every game (in the order of the games), so they are deterministic.
+ */
+public class TournamentResult {
+	
+	public static final double ELO_INITIAL = 1500;
+	public static final double ELO_K_FACTOR = 16;
+	
+	private final List<String> botNames;
+	private final Map<String, BotStatistics> statistics;
+	private final Map<Pair<String, String>, BotStatistics> pairingStatistics; // the statistics of the first bot against the second bot
+	
+	private int numGames;
+	
+	protected TournamentResult(List<String> botNames) {
+		this.botNames = botNames;
+		
+		statistics = new LinkedHashMap<>();
+		pairingStatistics = new LinkedHashMap<>();
+		for (String bot : botNames) {
+			statistics.put(bot, new BotStatistics(bot));
+			for (String other : botNames) {
+				if (!bot.equals(other)) {
+					pairingStatistics.put(Pair.of(bot, other), new BotStatistics(bot));
+				}
+			}
+		}
+	}
+	
+	protected void addResult(String bot1, String bot2, SimulationResult result) {
+		numGames++;
+		
+		// the score of a game is 1 for a win, 0.5 for a draw and 0 for a loss (from the view of bot1)
+		double score;
+		if (result.getWinner() == Owner.PLAYER_1) {
+			score = 1;
+		}
+		else if (result.getWinner() == Owner.PLAYER_2) {
+			score = 0;
+		}
+		else {
+			score = 0.5;
+		}
+		
+		BotStatistics statistics1 = statistics.get(bot1);
+		BotStatistics statistics2 = statistics.get(bot2);
+		
+		double expectedScore = 1 / (1 + Math.pow(10, (statistics2.elo - statistics1.elo) / 400));
+		double eloChange = ELO_K_FACTOR * (score - expectedScore);
+		statistics1.elo += eloChange;
+		statistics2.elo -= eloChange;
+		
+		statistics1.addGame(score);
+		statistics2.addGame(1 - score);
+		pairingStatistics.get(Pair.of(bot1, bot2)).addGame(score);
+		pairingStatistics.get(Pair.of(bot2, bot1)).addGame(1 - score);
+	}
+	
+	public int getNumGames() {
+		return numGames;
+	}
+	
+	public BotStatistics getStatistics(String bot) {
+		BotStatistics botStatistics = statistics.get(bot);
+		if (botStatistics == null) {
+			throw new IllegalArgumentException("Unknown bot: " + bot);
+		}
+		return botStatistics;
+	}
+	
+	/**
+	 * The statistics of the bot in the games against the other bot.
+	 */
+	public BotStatistics getStatistics(String bot, String other) {
+		BotStatistics botStatistics = pairingStatistics.get(Pair.of(bot, other));
+		if (botStatistics == null) {
+			throw new IllegalArgumentException("Unknown pairing: " + bot + " vs. " + other);
+		}
+		return botStatistics;
+	}
+	
+	/**
+	 * A table of all bots (sorted by elo rating) with their win rates.
+	 */
+	public String getRankingTable() {
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("%-20s %8s %8s %8s %8s %8s %9s%n", "bot", "elo", "games", "wins", "draws", "losses", "win rate"));
+		
+		List<BotStatistics> ranking = statistics.values().stream() //
+				.sorted(Comparator.comparingDouble((BotStatistics botStatistics) -> botStatistics.elo).reversed()) //
+				.collect(Collectors.toList());
+		for (BotStatistics botStatistics : ranking) {
+			table.append(String.format("%-20s %8.1f %8d %8d %8d %8d %8.1f%%%n", botStatistics.bot, botStatistics.elo, botStatistics.games,
+					botStatistics.wins, botStatistics.draws, botStatistics.losses, 100 * botStatistics.getWinRate()));
+		}
+		
+		return table.toString();
+	}
+	
+	/**
+	 * A table with the win rate of every bot (row) against every other bot (column).
+	 */
+	public String getWinRateTable() {
+		StringBuilder table = new StringBuilder();
+		table.append(String.format("%-20s", ""));
+		for (String bot : botNames) {
+			table.append(String.format(" %20s", bot));
+		}
+		table.append(String.format("%n"));
+		
+		for (String bot : botNames) {
+			table.append(String.format("%-20s", bot));
+			for (String other : botNames) {
+				if (bot.equals(other)) {
+					table.append(String.format(" %20s", "-"));
+				}
+				else {
+					table.append(String.format(" %19.1f%%", 100 * getStatistics(bot, other).getWinRate()));
+				}
+			}
+			table.append(String.format("%n"));
+		}
+		
+		return table.toString();
+	}
+	
+	@Override
+	public String toString() {
+		return getRankingTable();
+	}
+	
+	public static class BotStatistics {
+		
+		public final String bot;
+		
+		private int games;
+		private int wins;
+		private int draws;
+		private int losses;
+		private double elo = ELO_INITIAL;
+		
+		private BotStatistics(String bot) {
+			this.bot = bot;
+		}
+		
+		private void addGame(double score) {
+			games++;
+			if (score == 1) {
+				wins++;
+			}
+			else if (score == 0) {
+				losses++;
+			}
+			else {
+				draws++;
+			}
+		}
+		
+		public int getGames() {
+			return games;
+		}
+		
+		public int getWins() {
+			return wins;
+		}
+		
+		public int getDraws() {
+			return draws;
+		}
+		
+		public int getLosses() {
+			return losses;
+		}
+		
+		/**
+		 * The win rate, where a draw counts as half a win.
+		 */
+		public double getWinRate() {
+			if (games == 0) {
+				return 0;
+			}
+			return (wins + 0.5 * draws) / games;
+		}
+		
+		/**
+		 * The elo rating (only the total statistics of a bot have an elo rating; the statistics of a pairing keep the initial value).
+		 */
+		public double getElo() {
+			return elo;
+		}
+	}
+}
@@ -0,0 +1,118 @@
+package com.codingame.game.simulation;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+import com.codingame.game.League;
+
+/**
+ * Plays a tournament of bots against each other on many seeds, using all cores (with a work-stealing pool).
+ * 
+ * Every pair of bots plays every seed twice (with swapped sides). Every game uses it's own random instance and new bot instances,
+ * so the results (and the aggregated win rates and elo ratings) are the same as if the games were played one after another.
+ */
+public class TournamentRunner {
+	
+	private final GameSimulator simulator;
+	private final Map<String, Supplier<Bot>> bots;
+	
+	private int parallelism = Runtime.getRuntime().availableProcessors();
+	
+	/**
+	 * @param league
+	 *        The league in which the games are played
+	 * 
+	 * @param bots
+	 *        The suppliers of the bots (by name). A new bot is created for every game, so the bots don't need to be thread safe.
+	 */
+	public TournamentRunner(League league, Map<String, Supplier<Bot>> bots) {
+		if (bots.size() < 2) {
+			throw new IllegalArgumentException("At least two bots are needed for a tournament");
+		}
+		
+		this.simulator = new GameSimulator(league);
+		this.bots = new LinkedHashMap<>(bots);
+	}
+	
+	/**
+	 * Play all pairings of the bots on the seeds firstSeed to firstSeed + numSeeds - 1.
+	 */
+	public TournamentResult run(long firstSeed, int numSeeds) {
+		List<Game> games = createGames(firstSeed, numSeeds);
+		SimulationResult[] results = new SimulationResult[games.size()];
+		
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			// the results are stored by the index of the game, so the order doesn't depend on the execution order
+			pool.submit(() -> IntStream.range(0, games.size()).parallel().forEach(i -> results[i] = games.get(i).play())).get();
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("The tournament was interrupted", e);
+		}
+		catch (ExecutionException e) {
+			throw new IllegalStateException("A game of the tournament failed", e.getCause());
+		}
+		finally {
+			pool.shutdown();
+		}
+		
+		TournamentResult tournamentResult = new TournamentResult(new ArrayList<>(bots.keySet()));
+		for (int i = 0; i < games.size(); i++) {
+			tournamentResult.addResult(games.get(i).bot1, games.get(i).bot2, results[i]);
+		}
+		
+		return tournamentResult;
+	}
+	
+	private List<Game> createGames(long firstSeed, int numSeeds) {
+		List<String> botNames = new ArrayList<>(bots.keySet());
+		List<Game> games = new ArrayList<>();
+		
+		for (long seed = firstSeed; seed < firstSeed + numSeeds; seed++) {
+			for (String bot1 : botNames) {
+				for (String bot2 : botNames) {
+					if (!bot1.equals(bot2)) {
+						games.add(new Game(seed, bot1, bot2));
+					}
+				}
+			}
+		}
+		
+		return games;
+	}
+	
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	public void setParallelism(int parallelism) {
+		if (parallelism <= 0) {
+			throw new IllegalArgumentException("The parallelism must be positive");
+		}
+		this.parallelism = parallelism;
+	}
+	
+	private class Game {
+		
+		private final long seed;
+		private final String bot1;
+		private final String bot2;
+		
+		public Game(long seed, String bot1, String bot2) {
+			this.seed = seed;
+			this.bot1 = bot1;
+			this.bot2 = bot2;
+		}
+		
+		public SimulationResult play() {
+			return simulator.simulate(seed, bots.get(bot1).get(), bots.get(bot2).get());
+		}
+	}
+}
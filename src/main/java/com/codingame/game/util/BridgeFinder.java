@@ -0,0 +1,94 @@
+package com.codingame.game.util;
+
+import java.util.Arrays;
+
+/**
+ * Finds the bridges of an undirected graph (the edges whose removal divides the graph), using Tarjan's low-link values.
+ * 
+ * The depth first search is iterative (using an explicit stack), so it can't overflow the call stack on large graphs. The arrays are
+ * reused, so the bridges can be found again (after the graph was changed) without creating new objects.
+ * 
+ * An edge (u, v) is a bridge, if v is a child of u in the depth first search tree and no vertex in the subtree of v has a back edge
+ * to u or an ancestor of u (low[v] > discovery[u]). The graph must not contain multiple edges between two vertices.
+ */
+public class BridgeFinder {
+	
+	private final int numVertices;
+	
+	private final int[] discovery; // the discovery time of every vertex (or -1 if it was not discovered yet)
+	private final int[] low; // the lowest discovery time that is reachable from the subtree of a vertex with one back edge
+	private final int[] parent; // the parent in the depth first search tree (or -1 for a root)
+	
+	private final int[] stack;
+	private final int[] nextNeighbourIndex; // the index of the next neighbour to visit for every vertex on the stack
+	
+	public BridgeFinder(int numVertices) {
+		this.numVertices = numVertices;
+		discovery = new int[numVertices];
+		low = new int[numVertices];
+		parent = new int[numVertices];
+		stack = new int[numVertices];
+		nextNeighbourIndex = new int[numVertices];
+	}
+	
+	/**
+	 * Find the bridges of the graph, that is given as adjacency lists in a compressed layout: the neighbours of the vertex i are
+	 * neighbours[offsets[i]] to neighbours[offsets[i + 1] - 1].
+	 */
+	public void findBridges(int[] offsets, int[] neighbours) {
+		Arrays.fill(discovery, -1);
+		Arrays.fill(parent, -1);
+		int time = 0;
+		
+		for (int root = 0; root < numVertices; root++) {
+			if (discovery[root] != -1) {
+				continue;
+			}
+			
+			int stackSize = 0;
+			stack[stackSize++] = root;
+			discovery[root] = low[root] = time++;
+			nextNeighbourIndex[root] = offsets[root];
+			
+			while (stackSize > 0) {
+				int vertex = stack[stackSize - 1];
+				
+				if (nextNeighbourIndex[vertex] < offsets[vertex + 1]) {
+					int neighbour = neighbours[nextNeighbourIndex[vertex]++];
+					
+					if (discovery[neighbour] == -1) {
+						// tree edge: visit the neighbour
+						parent[neighbour] = vertex;
+						discovery[neighbour] = low[neighbour] = time++;
+						nextNeighbourIndex[neighbour] = offsets[neighbour];
+						stack[stackSize++] = neighbour;
+					}
+					else if (neighbour != parent[vertex]) {
+						// back edge
+						low[vertex] = Math.min(low[vertex], discovery[neighbour]);
+					}
+				}
+				else {
+					// all neighbours are visited: pass the low-link value to the parent
+					stackSize--;
+					if (parent[vertex] != -1) {
+						low[parent[vertex]] = Math.min(low[parent[vertex]], low[vertex]);
+					}
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Check whether the edge between two vertices is a bridge (in the graph that was given to the last call of findBridges).
+	 */
+	public boolean isBridge(int vertex1, int vertex2) {
+		if (parent[vertex2] == vertex1) {
+			return low[vertex2] > discovery[vertex1];
+		}
+		if (parent[vertex1] == vertex2) {
+			return low[vertex1] > discovery[vertex2];
+		}
+		return false; // not a tree edge, so it's part of a cycle (or no edge at all)
+	}
+}
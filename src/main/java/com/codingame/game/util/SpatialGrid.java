@@ -0,0 +1,201 @@
+package com.codingame.game.util;
+
+import java.util.function.IntPredicate;
+
+/**
+ * An immutable uniform grid over a set of points (identified by their index), to find near points without comparing all pairs.
+ * 
+ * The points of every cell are stored in a compressed layout: the indices of the points in cell c are
+ * cellEntries[cellStarts[c]] to cellEntries[cellStarts[c + 1] - 1].
+ * 
+ * The searches visit the cells in rings around the cell of the searched position, and stop as soon as no point in the next ring
+ * can be nearer than the points that were already found. So for evenly distributed points a search only visits a few cells.
+ */
+public class SpatialGrid {
+	
+	private final double[] x;
+	private final double[] y;
+	
+	private final double minX;
+	private final double minY;
+	private final double cellSize;
+	private final int numCellsX;
+	private final int numCellsY;
+	
+	private final int[] cellStarts;
+	private final int[] cellEntries;
+	
+	/**
+	 * @param x
+	 *        The x coordinates of the points (the array is not copied)
+	 * 
+	 * @param y
+	 *        The y coordinates of the points (the array is not copied)
+	 * 
+	 * @param cellSize
+	 *        The width and height of a cell (should be chosen so that a cell contains only a few points)
+	 */
+	public SpatialGrid(double[] x, double[] y, double cellSize) {
+		if (x.length != y.length) {
+			throw new IllegalArgumentException("The number of x and y coordinates must be equal");
+		}
+		if (!(cellSize > 0)) {
+			throw new IllegalArgumentException("The cell size must be positive");
+		}
+		
+		this.x = x;
+		this.y = y;
+		this.cellSize = cellSize;
+		
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < x.length; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		if (x.length == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		
+		this.minX = minX;
+		this.minY = minY;
+		numCellsX = (int) ((maxX - minX) / cellSize) + 1;
+		numCellsY = (int) ((maxY - minY) / cellSize) + 1;
+		
+		// count the points per cell and fill them into the cells
+		cellStarts = new int[numCellsX * numCellsY + 1];
+		for (int i = 0; i < x.length; i++) {
+			cellStarts[getCell(x[i], y[i]) + 1]++;
+		}
+		for (int c = 0; c < numCellsX * numCellsY; c++) {
+			cellStarts[c + 1] += cellStarts[c];
+		}
+		cellEntries = new int[x.length];
+		int[] fillPositions = new int[numCellsX * numCellsY];
+		for (int i = 0; i < x.length; i++) {
+			int cell = getCell(x[i], y[i]);
+			cellEntries[cellStarts[cell] + fillPositions[cell]++] = i;
+		}
+	}
+	
+	/**
+	 * Choose a cell size, so that a cell contains about the given number of points (if the points are distributed evenly).
+	 */
+	public static double calculateCellSize(double width, double height, int numPoints, double pointsPerCell) {
+		return Math.max(Math.sqrt(width * height * pointsPerCell / Math.max(numPoints, 1)), 1e-6);
+	}
+	
+	/**
+	 * Find the k nearest points of a point (excluding the point itself).
+	 * 
+	 * @param neighbours
+	 *        The array, the indices of the nearest points are written to (sorted by increasing distance); must have at least k entries
+	 * 
+	 * @param distances
+	 *        The array, the distances of the nearest points are written to; must have at least k entries
+	 * 
+	 * @return The number of points that were found (less than k only if there are less than k other points)
+	 */
+	public int findNearestNeighbours(int index, int k, int[] neighbours, double[] distances) {
+		return findNearest(x[index], y[index], k, other -> other != index, neighbours, distances);
+	}
+	
+	/**
+	 * Find the nearest point to a position, that matches the filter.
+	 * 
+	 * @return The index of the nearest point, or -1 if no point matches the filter
+	 */
+	public int findNearest(double posX, double posY, IntPredicate filter) {
+		int[] neighbour = new int[1];
+		int found = findNearest(posX, posY, 1, filter, neighbour, new double[1]);
+		return found == 0 ? -1 : neighbour[0];
+	}
+	
+	private int findNearest(double posX, double posY, int k, IntPredicate filter, int[] neighbours, double[] distances) {
+		if (k <= 0) {
+			return 0;
+		}
+		
+		int cellX = clamp((int) ((posX - minX) / cellSize), numCellsX);
+		int cellY = clamp((int) ((posY - minY) / cellSize), numCellsY);
+		int maxRing = Math.max(Math.max(cellX, numCellsX - 1 - cellX), Math.max(cellY, numCellsY - 1 - cellY));
+		
+		int found = 0;
+		for (int ring = 0; ring <= maxRing; ring++) {
+			// points in this ring (or further away) are at least this far away from the position, if the position is inside the grid
+			double minRingDistance = (ring - 1) * cellSize;
+			if (found == k && distances[k - 1] <= minRingDistance) {
+				break;
+			}
+			
+			for (int cy = cellY - ring; cy <= cellY + ring; cy++) {
+				if (cy < 0 || cy >= numCellsY) {
+					continue;
+				}
+				
+				boolean borderRow = cy == cellY - ring || cy == cellY + ring;
+				int step = borderRow ? 1 : Math.max(2 * ring, 1); // only the first and last cell of the inner rows belong to the ring
+				for (int cx = cellX - ring; cx <= cellX + ring; cx += step) {
+					if (cx < 0 || cx >= numCellsX) {
+						continue;
+					}
+					
+					int cell = cy * numCellsX + cx;
+					for (int e = cellStarts[cell]; e < cellStarts[cell + 1]; e++) {
+						int candidate = cellEntries[e];
+						if (filter.test(candidate)) {
+							double distance = Math.hypot(x[candidate] - posX, y[candidate] - posY);
+							found = insertSorted(candidate, distance, neighbours, distances, found, k);
+						}
+					}
+				}
+			}
+		}
+		
+		return found;
+	}
+	
+	/**
+	 * Insert a point into the sorted arrays of the nearest points (if it's nearer than the farthest point that was found).
+	 * 
+	 * @return The new number of found points
+	 */
+	private static int insertSorted(int candidate, double distance, int[] neighbours, double[] distances, int found, int k) {
+		if (found == k && distance >= distances[k - 1]) {
+			return found;
+		}
+		
+		int position = found == k ? k - 1 : found;
+		while (position > 0 && distances[position - 1] > distance) {
+			neighbours[position] = neighbours[position - 1];
+			distances[position] = distances[position - 1];
+			position--;
+		}
+		neighbours[position] = candidate;
+		distances[position] = distance;
+		
+		return Math.min(found + 1, k);
+	}
+	
+	private int getCell(double posX, double posY) {
+		int cellX = clamp((int) ((posX - minX) / cellSize), numCellsX);
+		int cellY = clamp((int) ((posY - minY) / cellSize), numCellsY);
+		return cellY * numCellsX + cellX;
+	}
+	
+	private static int clamp(int cell, int numCells) {
+		return Math.max(0, Math.min(numCells - 1, cell));
+	}
+	
+	public int getNumCellsX() {
+		return numCellsX;
+	}
+	
+	public int getNumCellsY() {
+		return numCellsY;
+	}
+}
@@ -0,0 +1,64 @@
+package com.codingame.game.util;
+
+/**
+ * A union-find (disjoint set) structure on the elements 0 to n-1, with union by size and path halving (without recursion).
+ */
+public class UnionFind {
+	
+	private final int[] parent;
+	private final int[] size;
+	private int numSets;
+	
+	public UnionFind(int numElements) {
+		parent = new int[numElements];
+		size = new int[numElements];
+		for (int i = 0; i < numElements; i++) {
+			parent[i] = i;
+			size[i] = 1;
+		}
+		numSets = numElements;
+	}
+	
+	/**
+	 * Find the representative of the set that contains the element.
+	 */
+	public int find(int element) {
+		while (parent[element] != element) {
+			parent[element] = parent[parent[element]]; // path halving
+			element = parent[element];
+		}
+		return element;
+	}
+	
+	/**
+	 * Merge the sets that contain the two elements.
+	 * 
+	 * @return true if the elements were in different sets before
+	 */
+	public boolean union(int element1, int element2) {
+		int root1 = find(element1);
+		int root2 = find(element2);
+		if (root1 == root2) {
+			return false;
+		}
+		
+		if (size[root1] < size[root2]) {
+			int tmp = root1;
+			root1 = root2;
+			root2 = tmp;
+		}
+		parent[root2] = root1;
+		size[root1] += size[root2];
+		numSets--;
+		
+		return true;
+	}
+	
+	public boolean isConnected(int element1, int element2) {
+		return find(element1) == find(element2);
+	}
+	
+	public int getNumSets() {
+		return numSets;
+	}
+}
@@ -0,0 +1,222 @@
+package com.codingame.game.view;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.codingame.game.util.Vector2D;
+
+/**
+ * Traces the outlines of the labeled areas of a grid (stored row by row in an int array) and simplifies them with the
+ * Douglas-Peucker algorithm.
+ * 
+ * The outline runs along the edges of the cells (like in marching squares), with the area on the right side, so neighbouring areas
+ * share their outlines. Cells that only touch diagonally are not connected. Holes in an area are not traced.
+ */
+class ContourTracer {
+	
+	// the directions on the grid (y pointing down)
+	private static final int EAST = 0;
+	private static final int SOUTH = 1;
+	private static final int WEST = 2;
+	private static final int NORTH = 3;
+	private static final int[] DIRECTION_X = {1, 0, -1, 0};
+	private static final int[] DIRECTION_Y = {0, 1, 0, -1};
+	
+	private final int[] labels;
+	private final int numCellsX;
+	private final int numCellsY;
+	private final boolean[] upperEdgeTraced; // whether the upper edge of a cell is part of an outline that was traced
+	
+	public ContourTracer(int[] labels, int numCellsX, int numCellsY) {
+		if (labels.length != numCellsX * numCellsY) {
+			throw new IllegalArgumentException("The number of labels doesn't match the size of the grid");
+		}
+		this.labels = labels;
+		this.numCellsX = numCellsX;
+		this.numCellsY = numCellsY;
+		upperEdgeTraced = new boolean[labels.length];
+	}
+	
+	/**
+	 * Trace the outlines of all connected areas of a label, and return the one that encloses the largest area.
+	 * 
+	 * @param boundaryCells
+	 *        The boundary cells of the label in the order of the rows (cells on the border of the grid or next to a cell with another
+	 *        label)
+	 * 
+	 * @return The corners of the largest outline (like in {@link #traceOutline(int)}), or an empty list if there are no boundary cells
+	 */
+	public List<int[]> traceLargestOutline(int[] boundaryCells) {
+		List<int[]> largestOutline = new ArrayList<int[]>();
+		long largestArea = 0;
+		for (int cell : boundaryCells) {
+			int cellX = cell % numCellsX;
+			int cellY = cell / numCellsX;
+			// every outline runs along the upper edge of a boundary cell (that is not traced already)
+			if (!upperEdgeTraced[cell] && !isInside(cellX, cellY - 1, labels[cell])) {
+				List<int[]> outline = traceOutline(cell);
+				long area = getArea(outline);
+				if (area > largestArea) {
+					largestOutline = outline;
+					largestArea = area;
+				}
+			}
+		}
+		return largestOutline;
+	}
+	
+	/**
+	 * Twice the area that is enclosed by the outline (positive for outlines of areas, negative for the outlines of holes).
+	 */
+	private static long getArea(List<int[]> outline) {
+		long area = 0;
+		for (int i = 0; i < outline.size(); i++) {
+			int[] corner = outline.get(i);
+			int[] next = outline.get((i + 1) % outline.size());
+			area += (long) corner[0] * next[1] - (long) next[0] * corner[1];
+		}
+		return area;
+	}
+	
+	/**
+	 * Trace the outline of the connected area of the start cell (clockwise on the screen).
+	 * 
+	 * @param startCell
+	 *        The first cell of the area in the order of the rows (so the cell above it is not part of the area)
+	 * 
+	 * @return The corners of the outline, as the corners of the cells (the corner (i, j) is the upper left corner of the cell (i, j)),
+	 *         without points on straight lines
+	 */
+	public List<int[]> traceOutline(int startCell) {
+		int label = labels[startCell];
+		int startX = startCell % numCellsX;
+		int startY = startCell / numCellsX;
+		if (isInside(startX, startY - 1, label)) {
+			throw new IllegalArgumentException("The cell above the start cell must not be part of the area");
+		}
+		
+		// start at the upper left corner of the start cell, as if the outline came up the left edge (the area is on the right side)
+		List<int[]> corners = new ArrayList<int[]>();
+		int cornerX = startX;
+		int cornerY = startY;
+		int direction = NORTH;
+		do {
+			int nextDirection = getNextDirection(cornerX, cornerY, direction, label);
+			if (nextDirection != direction) {
+				corners.add(new int[] {cornerX, cornerY});
+			}
+			if (nextDirection == EAST) {
+				upperEdgeTraced[cornerY * numCellsX + cornerX] = true;
+			}
+			direction = nextDirection;
+			cornerX += DIRECTION_X[direction];
+			cornerY += DIRECTION_Y[direction];
+		} while (cornerX != startX || cornerY != startY || getNextDirection(cornerX, cornerY, direction, label) != EAST);
+		
+		return corners;
+	}
+	
+	/**
+	 * Find the direction in which the outline continues at a corner, so the area stays on the right side. If the area only touches the
+	 * corner diagonally (a saddle) the outline turns right, so the diagonal cells are not connected.
+	 */
+	private int getNextDirection(int cornerX, int cornerY, int direction, int label) {
+		boolean upperLeft = isInside(cornerX - 1, cornerY - 1, label);
+		boolean upperRight = isInside(cornerX, cornerY - 1, label);
+		boolean lowerLeft = isInside(cornerX - 1, cornerY, label);
+		boolean lowerRight = isInside(cornerX, cornerY, label);
+		
+		if (upperLeft == lowerRight && upperRight == lowerLeft && upperLeft != upperRight) {
+			return (direction + 1) % 4; // saddle
+		}
+		if (lowerRight && !upperRight) {
+			return EAST;
+		}
+		if (lowerLeft && !lowerRight) {
+			return SOUTH;
+		}
+		if (upperLeft && !lowerLeft) {
+			return WEST;
+		}
+		if (upperRight && !upperLeft) {
+			return NORTH;
+		}
+		throw new IllegalStateException("The corner (" + cornerX + ", " + cornerY + ") is not on the outline");
+	}
+	
+	private boolean isInside(int cellX, int cellY, int label) {
+		return cellX >= 0 && cellX < numCellsX && cellY >= 0 && cellY < numCellsY && labels[cellY * numCellsX + cellX] == label;
+	}
+	
+	/**
+	 * Simplify a closed polygon with the Douglas-Peucker algorithm: the points of a part of the outline are replaced by a straight
+	 * line, if no point is further away from the line than the tolerance (otherwise the part is split at the furthest point).
+	 */
+	public static List<Vector2D> simplify(List<Vector2D> polygon, double tolerance) {
+		int numPoints = polygon.size();
+		if (numPoints <= 3) {
+			return new ArrayList<Vector2D>(polygon);
+		}
+		
+		// split the closed polygon into two lines: from the first point to the furthest point and back
+		int furthest = 0;
+		for (int i = 1; i < numPoints; i++) {
+			if (polygon.get(i).distance2(polygon.get(0)) > polygon.get(furthest).distance2(polygon.get(0))) {
+				furthest = i;
+			}
+		}
+		
+		boolean[] keep = new boolean[numPoints + 1]; // the first point is added again as the last point, to close the polygon
+		keep[0] = true;
+		keep[furthest] = true;
+		keep[numPoints] = true;
+		
+		int[] stack = new int[2 * numPoints + 4];
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		stack[stackSize++] = furthest;
+		stack[stackSize++] = furthest;
+		stack[stackSize++] = numPoints;
+		while (stackSize > 0) {
+			int end = stack[--stackSize];
+			int start = stack[--stackSize];
+			
+			int split = -1;
+			double maxDistance = tolerance;
+			for (int i = start + 1; i < end; i++) {
+				double distance = distanceToSegment(polygon.get(i), polygon.get(start), polygon.get(end % numPoints));
+				if (distance > maxDistance) {
+					split = i;
+					maxDistance = distance;
+				}
+			}
+			
+			if (split != -1) {
+				keep[split] = true;
+				stack[stackSize++] = start;
+				stack[stackSize++] = split;
+				stack[stackSize++] = split;
+				stack[stackSize++] = end;
+			}
+		}
+		
+		List<Vector2D> simplified = new ArrayList<Vector2D>();
+		for (int i = 0; i < numPoints; i++) {
+			if (keep[i]) {
+				simplified.add(polygon.get(i));
+			}
+		}
+		return simplified;
+	}
+	
+	private static double distanceToSegment(Vector2D point, Vector2D start, Vector2D end) {
+		double dx = end.x - start.x;
+		double dy = end.y - start.y;
+		double lengthSquared = dx * dx + dy * dy;
+		double t = lengthSquared == 0 ? 0 : ((point.x - start.x) * dx + (point.y - start.y) * dy) / lengthSquared;
+		t = Math.max(0, Math.min(1, t));
+		double distX = point.x - (start.x + t * dx);
+		double distY = point.y - (start.y + t * dy);
+		return Math.sqrt(distX * distX + distY * distY);
+	}
+}
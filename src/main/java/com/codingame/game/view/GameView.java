@@ -0,0 +1,45 @@
+package com.codingame.game.view;
+
+import java.util.List;
+import java.util.Set;
+
+import com.codingame.game.Action;
+import com.codingame.game.Player;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.Region;
+import com.codingame.game.core.TurnType;
+import com.codingame.game.util.Pair;
+
+/**
+ * The view of the game, that is used by the referee to draw and animate the game state.
+ */
+public interface GameView {
+	
+	public void drawBackground();
+	
+	public void drawPlayerInfos(Player player1, Player player2);
+	
+	public void drawLegend(Set<Region> regions);
+	
+	public void drawRegions(Set<Region> regions);
+	
+	public void drawConnections(Set<Pair<Field, Field>> connections, Set<Region> regions);
+	
+	public void drawFields(Set<Field> fields);
+	
+	public void updatePlayerStats(Owner player, int fields, int troops, int deployable);
+	
+	public void updateFields(Set<Field> fields);
+	
+	public void updateRegionLegend(GameMap map);
+	
+	public void animatePicks(Set<Field> fields, Set<PickEvent> picksPerformed);
+	
+	public void animateDeployments(List<Action> actions1, List<Action> actions2);
+	
+	public void animateMovements(MovementEvents events, Set<Field> fields);
+	
+	public void resetAnimations(TurnType turnType);
+}
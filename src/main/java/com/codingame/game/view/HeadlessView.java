@@ -0,0 +1,58 @@
+package com.codingame.game.view;
+
+import java.util.List;
+import java.util.Set;
+
+import com.codingame.game.Action;
+import com.codingame.game.Player;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.Region;
+import com.codingame.game.core.TurnType;
+import com.codingame.game.util.Pair;
+
+/**
+ * A view that draws nothing, so no layout is calculated and no graphic entities are created (used to simulate many games fast).
+ */
+public class HeadlessView implements GameView {
+	
+	@Override
+	public void drawBackground() {}
+	
+	@Override
+	public void drawPlayerInfos(Player player1, Player player2) {}
+	
+	@Override
+	public void drawLegend(Set<Region> regions) {}
+	
+	@Override
+	public void drawRegions(Set<Region> regions) {}
+	
+	@Override
+	public void drawConnections(Set<Pair<Field, Field>> connections, Set<Region> regions) {}
+	
+	@Override
+	public void drawFields(Set<Field> fields) {}
+	
+	@Override
+	public void updatePlayerStats(Owner player, int fields, int troops, int deployable) {}
+	
+	@Override
+	public void updateFields(Set<Field> fields) {}
+	
+	@Override
+	public void updateRegionLegend(GameMap map) {}
+	
+	@Override
+	public void animatePicks(Set<Field> fields, Set<PickEvent> picksPerformed) {}
+	
+	@Override
+	public void animateDeployments(List<Action> actions1, List<Action> actions2) {}
+	
+	@Override
+	public void animateMovements(MovementEvents events, Set<Field> fields) {}
+	
+	@Override
+	public void resetAnimations(TurnType turnType) {}
+}
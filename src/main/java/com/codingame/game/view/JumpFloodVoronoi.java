@@ -0,0 +1,197 @@
+package com.codingame.game.view;
+
+import java.util.Arrays;
+
+/**
+ * A Voronoi diagram of sites on a grid, calculated with the jump flooding algorithm: every cell stores the index of the nearest site
+ * it has seen so far, and looks at the sites of the cells in a distance of k (k = n/2, n/4, ..., 1) in every pass. A last pass with
+ * k = 1 corrects most of the (rare) errors of the algorithm. Sites that share their cell with a nearer site are added with a breadth
+ * first search afterwards.
+ * 
+ * The distances are calculated from the position of a cell to the exact position of a site (in the given norm), so for every cell
+ * only the nearest site that was propagated to it is approximated. The cells are stored in primitive arrays (row by row).
+ */
+class JumpFloodVoronoi {
+	
+	private final int numCellsX;
+	private final int numCellsY;
+	private final double x;
+	private final double y;
+	private final double cellSize;
+	private final int norm;
+	
+	private double[] siteX;
+	private double[] siteY;
+	
+	/**
+	 * @param x
+	 *        The position of the cell (0, 0)
+	 * @param cellSize
+	 *        The distance between two neighbouring cells
+	 * @param norm
+	 *        The norm of the distances (like in {@link com.codingame.game.util.Vector2D#length(int)})
+	 */
+	public JumpFloodVoronoi(int numCellsX, int numCellsY, double x, double y, double cellSize, int norm) {
+		if (numCellsX <= 0 || numCellsY <= 0) {
+			throw new IllegalArgumentException("The grid must contain at least one cell");
+		}
+		if (norm < 1) {
+			throw new IllegalArgumentException("The norm must be at least 1");
+		}
+		this.numCellsX = numCellsX;
+		this.numCellsY = numCellsY;
+		this.x = x;
+		this.y = y;
+		this.cellSize = cellSize;
+		this.norm = norm;
+	}
+	
+	/**
+	 * Find the nearest site of every cell (if the distances are equal the site with the lower index).
+	 * 
+	 * @return The index of the nearest site for every cell (the cell (i, j) at index j * numCellsX + i)
+	 */
+	public int[] calculateNearestSites(double[] siteX, double[] siteY) {
+		if (siteX.length == 0 || siteX.length != siteY.length) {
+			throw new IllegalArgumentException("At least one site (with an x and y coordinate) is needed");
+		}
+		this.siteX = siteX;
+		this.siteY = siteY;
+		
+		int[] nearest = new int[numCellsX * numCellsY];
+		Arrays.fill(nearest, -1);
+		
+		// seed every site in the cell that is nearest to it (sites outside of the grid are moved to the border)
+		for (int site = 0; site < siteX.length; site++) {
+			int cell = getCell(site);
+			if (isNearer(site, nearest[cell], cell % numCellsX, cell / numCellsX)) {
+				nearest[cell] = site;
+			}
+		}
+		boolean[] seeded = new boolean[siteX.length];
+		for (int site = 0; site < siteX.length; site++) {
+			seeded[site] = nearest[getCell(site)] == site;
+		}
+		
+		int[] next = new int[nearest.length];
+		int step = Integer.highestOneBit(Math.max(numCellsX, numCellsY) - 1);
+		while (step >= 1) {
+			propagate(nearest, next, step);
+			int[] swap = nearest;
+			nearest = next;
+			next = swap;
+			step /= 2;
+		}
+		propagate(nearest, next, 1);
+		
+		// sites that share their cell with a nearer site are lost in the jump flooding, so their cells are added afterwards
+		for (int site = 0; site < siteX.length; site++) {
+			if (!seeded[site]) {
+				floodSite(site, next);
+			}
+		}
+		
+		return next;
+	}
+	
+	private void propagate(int[] nearest, int[] next, int step) {
+		for (int cellY = 0; cellY < numCellsY; cellY++) {
+			for (int cellX = 0; cellX < numCellsX; cellX++) {
+				int best = nearest[cellY * numCellsX + cellX];
+				double bestDistance = best == -1 ? Double.POSITIVE_INFINITY : distance(best, cellX, cellY);
+				for (int dy = -step; dy <= step; dy += step) {
+					int otherY = cellY + dy;
+					if (otherY < 0 || otherY >= numCellsY) {
+						continue;
+					}
+					for (int dx = -step; dx <= step; dx += step) {
+						int otherX = cellX + dx;
+						if (otherX < 0 || otherX >= numCellsX) {
+							continue;
+						}
+						int site = nearest[otherY * numCellsX + otherX];
+						if (site != -1 && site != best) {
+							double distance = distance(site, cellX, cellY);
+							if (distance < bestDistance || (distance == bestDistance && site < best)) {
+								best = site;
+								bestDistance = distance;
+							}
+						}
+					}
+				}
+				next[cellY * numCellsX + cellX] = best;
+			}
+		}
+	}
+	
+	/**
+	 * Assign the cells to the site, that are connected to the cell of the site and nearer to the site than to the site they are assigned
+	 * to (a breadth first search from the cell of the site).
+	 */
+	private void floodSite(int site, int[] nearest) {
+		int[] queue = new int[16];
+		int head = 0;
+		int tail = 0;
+		queue[tail++] = getCell(site); // the cell itself is assigned to a nearer site
+		while (head < tail) {
+			int cell = queue[head++];
+			int cellX = cell % numCellsX;
+			int cellY = cell / numCellsX;
+			for (int neighbour = 0; neighbour < 4; neighbour++) {
+				int otherX = cellX + (neighbour == 0 ? -1 : neighbour == 1 ? 1 : 0);
+				int otherY = cellY + (neighbour == 2 ? -1 : neighbour == 3 ? 1 : 0);
+				if (otherX < 0 || otherX >= numCellsX || otherY < 0 || otherY >= numCellsY) {
+					continue;
+				}
+				int other = otherY * numCellsX + otherX;
+				if (nearest[other] != site && isNearer(site, nearest[other], otherX, otherY)) {
+					nearest[other] = site;
+					if (tail == queue.length) {
+						queue = Arrays.copyOf(queue, queue.length * 2);
+					}
+					queue[tail++] = other;
+				}
+			}
+		}
+	}
+	
+	private int getCell(int site) {
+		int cellX = Math.max(0, Math.min(numCellsX - 1, (int) Math.round((siteX[site] - x) / cellSize)));
+		int cellY = Math.max(0, Math.min(numCellsY - 1, (int) Math.round((siteY[site] - y) / cellSize)));
+		return cellY * numCellsX + cellX;
+	}
+	
+	/**
+	 * Check whether the site is nearer to the cell than the other site (that may be -1 for no site).
+	 */
+	private boolean isNearer(int site, int other, int cellX, int cellY) {
+		if (other == -1) {
+			return true;
+		}
+		double distance = distance(site, cellX, cellY);
+		double otherDistance = distance(other, cellX, cellY);
+		return distance < otherDistance || (distance == otherDistance && site < other);
+	}
+	
+	private double distance(int site, int cellX, int cellY) {
+		return distance(siteX[site] - (x + cellX * cellSize), siteY[site] - (y + cellY * cellSize), norm);
+	}
+	
+	/**
+	 * A value that is monotonic in the length of the vector (dx, dy) in the norm (the root of the norm is not calculated).
+	 */
+	static double distance(double dx, double dy, int norm) {
+		dx = Math.abs(dx);
+		dy = Math.abs(dy);
+		if (norm == 1) {
+			return dx + dy;
+		}
+		else if (norm == 2) {
+			return dx * dx + dy * dy;
+		}
+		else if (norm == Integer.MAX_VALUE) {
+			return Math.max(dx, dy);
+		}
+		return Math.pow(dx, norm) + Math.pow(dy, norm);
+	}
+}
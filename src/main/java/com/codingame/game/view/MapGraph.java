@@ -1,13 +1,12 @@
 package com.codingame.game.view;
 
 import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import com.codingame.game.core.Field;
 import com.codingame.game.core.GameMap;
-import com.codingame.game.core.Region;
 import com.codingame.game.util.Vector2D;
 import com.codingame.game.view.map.Graph;
 
@@ -16,9 +15,12 @@ public class MapGraph implements Graph<PositionedField> {
 	public GameMap gameMap;
 	public Set<PositionedField> fields;
 	
+	private Map<Field, PositionedField> positionedFields;
+	
 	public MapGraph(GameMap gameMap, Map<Field, Vector2D> positions) {
 		this.gameMap = gameMap;
 		this.fields = gameMap.fields.stream().map(field -> new PositionedField(field, positions.get(field))).collect(Collectors.toSet());
+		this.positionedFields = fields.stream().collect(Collectors.toMap(PositionedField::getField, Function.identity()));
 	}
 	
 	@Override
@@ -31,11 +33,13 @@ public class MapGraph implements Graph<PositionedField> {
 		return gameMap.isFieldsConnected(field1.field.id, field2.field.id);
 	}
 	
+	@Override
+	public Set<PositionedField> getConnectedFields(PositionedField field) {
+		return gameMap.getConnectedFields(field.field.id).stream().map(positionedFields::get).collect(Collectors.toSet());
+	}
+	
 	@Override
 	public boolean isFieldsInSameCluster(PositionedField field1, PositionedField field2) {
-		Optional<Region> region1 = gameMap.getRegionForFieldById(field1.field.id);
-		Optional<Region> region2 = gameMap.getRegionForFieldById(field2.field.id);
-		
-		return region1.isPresent() && region2.isPresent() && region1.get().id == region2.get().id;
+		return gameMap.isFieldsInSameRegion(field1.field.id, field2.field.id);
 	}
 }
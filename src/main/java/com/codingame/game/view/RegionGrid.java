@@ -2,8 +2,8 @@ package com.codingame.game.view;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -19,14 +19,24 @@ import com.codingame.gameengine.module.entities.Polygon;
 
 /**
  * Some mixture of Voronoi diagram based on regions and drawing logic for Codingame.
+ * 
+ * Every cell of the grid is labeled with the index of the nearest region, and the boundary cells of every region are collected. The
+ * outline of every region is traced on the labels, starting at the boundary cells (see {@link ContourTracer}), and simplified with
+ * the Douglas-Peucker algorithm.
  */
 public class RegionGrid {
 
+	public enum VoronoiMethod {
+		NEAREST_REGION, // compare the distances to all regions for every grid point
+		JUMP_FLOODING, // propagate the nearest fields through a grid of primitive labels (see JumpFloodVoronoi)
+		NEAREST_FIELD_PARALLEL; // compare the distances to all fields for every cell, in parallel blocks of rows (see RegionRasterizer)
+	}
+
 	/**
 	 * Container holding his own index position (xi, yi) in the grid and the draw
 	 * coordinate (pos).
 	 */
-	class GridPoint implements Comparable<GridPoint> {
+	class GridPoint {
 
 		Region nearestRegion;
 		Vector2D pos;
@@ -46,41 +56,6 @@ public class RegionGrid {
 			// get nearest region
 			nearestRegion = new DistTool<Region>(regionDists).getMinimumKey();
 		}
-
-		public boolean isRegionBoundaryPoint(GridPoint[][] grid) {
-			// on map border? -> is boundary point
-			if (isOnMapBorder(grid)) {
-				return true;
-			}
-
-			// go through all neighbors
-			for (int i = -1; i <= 1; i += 2) {
-				for (int j = -1; j <= 1; j += 2) {
-					int xOther = xi + j;
-					int yOther = yi + i;
-
-					// neighbor belongs to different region? -> is boundary point
-					if (!grid[yOther][xOther].nearestRegion.equals(nearestRegion))
-						return true;
-				}
-			}
-
-			// no reason fulfilled to be a boundary point
-			return false;
-		}
-
-		private boolean isOnMapBorder(GridPoint[][] grid) {
-			return xi == 0 || yi == 0 || yi == grid.length - 1 || xi == grid[0].length - 1;
-		}
-
-		@Override
-		public int compareTo(GridPoint o) {
-			if (xi == o.xi) {
-				return Integer.compare(yi, o.yi);
-			} else {
-				return Integer.compare(xi, o.xi);
-			}
-		}
 	}
 
 	// region/field parameters
@@ -96,10 +71,16 @@ public class RegionGrid {
 	// shape parameters
 	private int resolution = 1; // higher number -> faster, but less accurate
 	private int distNorm = 2; // influences the shape of the regions
+	private VoronoiMethod voronoiMethod = VoronoiMethod.NEAREST_REGION;
+	private double simplificationTolerance = 0; // the maximum distance of removed outline points to the simplified outline
 
-	// grid points (set for streams, array for indexing operations)
-	private Set<GridPoint> gridSet;
-	private GridPoint[][] grid;
+	// the grid: the index of the nearest region (in regionList) for every cell (row by row)
+	private List<Region> regionList;
+	private List<Field> sites;
+	private int xsteps;
+	private int ysteps;
+	private int[] labels;
+	private int[][] boundaryCells; // the boundary cells of every region (in the order of the rows)
 
 	public RegionGrid(Set<Region> regions, Map<Field, Vector2D> fieldPositions) {
 		this.regions = regions;
@@ -134,93 +115,53 @@ public class RegionGrid {
 		this.resolution = resolution;
 	}
 
+	public void setVoronoiMethod(VoronoiMethod voronoiMethod) {
+		this.voronoiMethod = voronoiMethod;
+	}
+
+	public void setSimplificationTolerance(double simplificationTolerance) {
+		this.simplificationTolerance = simplificationTolerance;
+	}
+
 	// **********************************************************************
 	// *** the actual usage
 	// **********************************************************************
 
 	public Map<Region, Polygon> createRegionPolygons(GraphicEntityModule graphicEntityModule) {
+		// create graphics (polygons) from the outlines
+		return createPolygons(createRegionOutlines(), graphicEntityModule);
+	}
+
+	/**
+	 * Create the simplified outlines of the regions (clockwise; empty for regions that are not nearest to any grid point).
+	 */
+	Map<Region, List<Vector2D>> createRegionOutlines() {
 		// create grid
 		initGrid();
 
-		// find nearest region for each grid point
+		// find nearest region for each grid point (and the boundary cells of the regions)
 		estimateNearestRegion();
 
-		// find region boundaries
-		Map<Region, Set<GridPoint>> boundaries = estimateRegionBoundaries();
+		// trace the outlines of the regions on the grid
+		Map<Region, List<Vector2D>> outlines = traceOutlines();
 
-		// get only the boundaries of the regions (sorted)
-		Map<Region, List<GridPoint>> polygonPoints = toPolygonPoint(boundaries);
-		
 		// try to keep only the vertices of the polygon
-		simplifyBoundaries(polygonPoints);
+		simplifyOutlines(outlines);
 
-		// create graphics (polygons) from boundaries
-		Map<Region, Polygon> regionPolygons = createPolygons(polygonPoints, graphicEntityModule);
-
-		return regionPolygons;
+		return outlines;
 	}
 
 	// **********************************************************************
 	// *** private methods
 	// **********************************************************************
 
-	/**
-	 *  Sometimes needed to avoid problems with high amount of graphical data.
-	 *  Still some imperfections, because of a lacking end point to start point (circular) check.
-	 */
-	private void simplifyBoundaries(Map<Region, List<GridPoint>> polygonPoints) {
-		boolean useAggressiveMethod = true;
-		// step size is 2 because of grid structure (only if we don't use other methods before=
-		//	x 0 0 
-		//  x x 0
-		//  0 x 0
-		int stepSize = useAggressiveMethod ? 1 : 2;
-		
-		if (useAggressiveMethod) {
-			simplifiyBoundsAggressively(polygonPoints);
-		}
-		
-		for (Region region : regions) {
-			List<GridPoint> points = polygonPoints.get(region);
-			
-			for (int i = points.size()-3*stepSize; i >= 0; i--) {
-				Vector2D p1 = points.get(i).pos;
-				Vector2D p2 = points.get(i+stepSize).pos;
-				Vector2D p3 = points.get(i+2*stepSize).pos;
-				
-				// remove p2 if p2 is on the line p1->p3
-				
-				if (p1.vectorTo(p3).setLength(1).isCloseTo(p2.vectorTo(p3).setLength(1)))
-					points.remove(i+stepSize);
-			}
-		}
-	}
-	
-	private void simplifiyBoundsAggressively(Map<Region, List<GridPoint>> polygonPoints) {
-		// another algorithm, effective but less smooth looking
+	private void simplifyOutlines(Map<Region, List<Vector2D>> outlines) {
 		for (Region region : regions) {
-			List<GridPoint> points = polygonPoints.get(region);
-			
-			for (int i = points.size()-3; i >= 0; i--) {
-				GridPoint p1 = points.get(i);
-				GridPoint p2 = points.get(i+1);
-				GridPoint p3 = points.get(i+2);
-				
-				int dx1 = p3.xi - p2.xi;
-				int dy1 = p3.yi - p2.yi;
-				int dx2 = p2.xi - p1.xi;
-				int dy2 = p2.yi - p1.yi;
-				// remove p2 if p2 is on the line p1->p3
-				
-				if (Math.abs(dx1+dy1) == Math.abs(dx2 + dy2)) {
-					points.remove(i+1);
-				}
-			}
+			outlines.put(region, ContourTracer.simplify(outlines.get(region), simplificationTolerance));
 		}
 	}
 
-	private Map<Region, Polygon> createPolygons(Map<Region, List<GridPoint>> polygonPoints,
-			GraphicEntityModule graphicEntityModule) {
+	private Map<Region, Polygon> createPolygons(Map<Region, List<Vector2D>> outlines, GraphicEntityModule graphicEntityModule) {
 		Map<Region, Polygon> polygons = new HashMap<Region, Polygon>();
 
 		for (Region region : regions) {
@@ -228,8 +169,8 @@ public class RegionGrid {
 			Polygon polygon = graphicEntityModule.createPolygon();
 
 			// add all points (the order is somewhat important)
-			for (GridPoint point : polygonPoints.get(region)) {
-				polygon.addPoint((int) point.pos.x, (int) point.pos.y);
+			for (Vector2D point : outlines.get(region)) {
+				polygon.addPoint((int) Math.round(point.x), (int) Math.round(point.y));
 			}
 
 			polygons.put(region, polygon);
@@ -238,88 +179,117 @@ public class RegionGrid {
 		return polygons;
 	}
 
-	private Map<Region, List<GridPoint>> toPolygonPoint(Map<Region, Set<GridPoint>> boundaries) {
-		Map<Region, List<GridPoint>> polygonPoints = new HashMap<Region, List<GridPoint>>();
+	private Map<Region, List<Vector2D>> traceOutlines() {
+		Map<Region, List<Vector2D>> outlines = new HashMap<Region, List<Vector2D>>();
 
-		for (Region region : regions) {
-			List<GridPoint> orderedBoundaries = new ArrayList<GridPoint>();
-			Set<GridPoint> inscope = new HashSet<GridPoint>(boundaries.get(region));
-			
-			// start the boundary sort on the upper left point
-			GridPoint currentPoint = inscope.stream().sorted().findFirst().get();
-
-			
-			// update visited + boundaries
-			orderedBoundaries.add(currentPoint);
-			inscope.remove(currentPoint);
-
-			// visit all boundary points
-			while (inscope.size() > 0) {
-				// find closest and not yet saved point
-				final Vector2D pos = currentPoint.pos;
-				Collection<Pair<GridPoint, Double>> pointDists = inscope.stream()
-						.map(p -> Pair.of(p, p.pos.distance(pos))).collect(Collectors.toSet());
-				GridPoint nextPoint = new DistTool<GridPoint>(pointDists).getMinimumKey();
-
-				// stop the border once we would jump through the map (happens if we skip one point earlier)
-				if (currentPoint.pos.distance(nextPoint.pos) >= 4 * resolution)
-					break;
-
-				// update visited + boundaries
-				inscope.remove(nextPoint);
-				orderedBoundaries.add(nextPoint);
-
-				// continue the border from the next point
-				currentPoint = nextPoint;
+		// trace the largest connected area of every region (parts of a region that are cut off by other regions are not drawn)
+		ContourTracer tracer = new ContourTracer(labels, xsteps, ysteps);
+		for (int i = 0; i < regionList.size(); i++) {
+			List<Vector2D> outline = new ArrayList<Vector2D>();
+			// the corners of the cells are half a step away from the grid points
+			for (int[] corner : tracer.traceLargestOutline(boundaryCells[i])) {
+				outline.add(new Vector2D(x + (corner[0] - 0.5) * resolution, y + (corner[1] - 0.5) * resolution));
 			}
-
-			polygonPoints.put(region, orderedBoundaries);
+			outlines.put(regionList.get(i), outline);
 		}
 
-		return polygonPoints;
+		return outlines;
 	}
 
-	private Map<Region, Set<GridPoint>> estimateRegionBoundaries() {
-		Map<Region, Set<GridPoint>> boundaries = new HashMap<Region, Set<GridPoint>>();
-
-		for (Region region : regions) {
-			// filter: by region
-			Set<GridPoint> regionPoints = gridSet.stream() //
-					.filter(p -> p.nearestRegion.equals(region)) //
-					.collect(Collectors.toSet());
-			
-			// filter: is boundary point
-			Set<GridPoint> regionBoundaries = regionPoints.stream() //
-					.filter(p -> p.isRegionBoundaryPoint(grid)) // 
-					.collect(Collectors.toSet());
-
-			boundaries.put(region, regionBoundaries);
+	private void estimateNearestRegion() {
+		switch (voronoiMethod) {
+			case NEAREST_REGION:
+				estimateNearestRegionByDistances();
+				break;
+			case JUMP_FLOODING:
+				estimateNearestRegionByJumpFlooding();
+				break;
+			case NEAREST_FIELD_PARALLEL:
+				estimateNearestRegionInParallel();
+				return; // the boundary cells are collected while labeling the cells
+			default:
+				throw new IllegalStateException("Unknown voronoi method: " + voronoiMethod);
 		}
 
-		return boundaries;
+		RegionRasterizer rasterizer = createRasterizer();
+		rasterizer.collectBoundaryCells(labels);
+		boundaryCells = getBoundaryCells(rasterizer);
 	}
 
-	private void estimateNearestRegion() {
-		gridSet.stream().forEach(p -> p.findNearestRegion(regions, fieldPositions, distNorm));
+	private void estimateNearestRegionInParallel() {
+		RegionRasterizer rasterizer = createRasterizer();
+		rasterizer.rasterize(getSiteX(), getSiteY(), getSiteRegions());
+		labels = rasterizer.getLabels();
+		boundaryCells = getBoundaryCells(rasterizer);
 	}
 
-	private void initGrid() {
-		// resolution = stepSize in x,y
-		int ysteps = height / resolution;
-		int xsteps = width / resolution;
+	private RegionRasterizer createRasterizer() {
+		return new RegionRasterizer(xsteps, ysteps, x, y, resolution, distNorm, regionList.size());
+	}
 
-		grid = new GridPoint[ysteps][xsteps];
-		gridSet = new HashSet<GridPoint>();
+	private int[][] getBoundaryCells(RegionRasterizer rasterizer) {
+		int[][] boundaryCells = new int[regionList.size()][];
+		for (int i = 0; i < regionList.size(); i++) {
+			boundaryCells[i] = rasterizer.getBoundaryCells(i);
+		}
+		return boundaryCells;
+	}
 
-		for (int i = 0; i < ysteps; i++) {
-			int ys = y + i * resolution;
+	private void estimateNearestRegionByDistances() {
+		Map<Region, Integer> regionIndices = new HashMap<Region, Integer>();
+		for (int i = 0; i < regionList.size(); i++) {
+			regionIndices.put(regionList.get(i), i);
+		}
 
+		for (int i = 0; i < ysteps; i++) {
 			for (int j = 0; j < xsteps; j++) {
-				int xs = x + j * resolution;
+				GridPoint point = new GridPoint(x + j * resolution, y + i * resolution, j, i);
+				point.findNearestRegion(regions, fieldPositions, distNorm);
+				labels[i * xsteps + j] = regionIndices.get(point.nearestRegion);
+			}
+		}
+	}
 
-				grid[i][j] = new GridPoint(xs, ys, j, i);
-				gridSet.add(grid[i][j]);
+	private void estimateNearestRegionByJumpFlooding() {
+		JumpFloodVoronoi voronoi = new JumpFloodVoronoi(xsteps, ysteps, x, y, resolution, distNorm);
+		int[] nearestSites = voronoi.calculateNearestSites(getSiteX(), getSiteY());
+
+		int[] siteRegions = getSiteRegions();
+		for (int cell = 0; cell < labels.length; cell++) {
+			labels[cell] = siteRegions[nearestSites[cell]];
+		}
+	}
+
+	private double[] getSiteX() {
+		return sites.stream().mapToDouble(f -> fieldPositions.get(f).x).toArray();
+	}
+
+	private double[] getSiteY() {
+		return sites.stream().mapToDouble(f -> fieldPositions.get(f).y).toArray();
+	}
+
+	/**
+	 * The index of the region (in regionList) of every site.
+	 */
+	private int[] getSiteRegions() {
+		Map<Field, Integer> fieldRegions = new HashMap<Field, Integer>();
+		for (int i = 0; i < regionList.size(); i++) {
+			for (Field field : regionList.get(i).fields) {
+				fieldRegions.put(field, i);
 			}
 		}
+		return sites.stream().mapToInt(fieldRegions::get).toArray();
+	}
+
+	private void initGrid() {
+		// resolution = stepSize in x,y
+		ysteps = height / resolution;
+		xsteps = width / resolution;
+
+		labels = new int[ysteps * xsteps];
+		regionList = regions.stream().sorted(Comparator.comparingInt(r -> r.id)).collect(Collectors.toList());
+
+		// the fields of all regions are the sites (ordered by their ids, so equal distances are resolved the same way every time)
+		sites = regions.stream().flatMap(r -> r.fields.stream()).sorted(Comparator.comparingInt(f -> f.id)).collect(Collectors.toList());
 	}
 }
@@ -0,0 +1,211 @@
+package com.codingame.game.view;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Labels the cells of a grid with the region of the nearest site and collects the boundary cells of every region (cells on the
+ * border of the grid or next to a cell of another region) in one pass.
+ * 
+ * The rows are split into blocks that are processed in parallel (fork/join). Every block also labels the rows above and below it
+ * (without storing them), so the boundary cells can be found without waiting for the other blocks.
+ */
+class RegionRasterizer {
+	
+	/**
+	 * The maximum number of rows that are processed in one task.
+	 */
+	public static final int ROWS_PER_TASK = 16;
+	
+	private final int numCellsX;
+	private final int numCellsY;
+	private final double x;
+	private final double y;
+	private final double cellSize;
+	private final int norm;
+	private final int numRegions;
+	
+	// the sites (null if only the boundary cells of given labels are collected)
+	private double[] siteX;
+	private double[] siteY;
+	private int[] siteRegions;
+	
+	private int[] labels;
+	private int[][] boundaryCells;
+	
+	/**
+	 * @param x
+	 *        The position of the cell (0, 0)
+	 * @param cellSize
+	 *        The distance between two neighbouring cells
+	 * @param norm
+	 *        The norm of the distances (like in {@link com.codingame.game.util.Vector2D#length(int)})
+	 */
+	public RegionRasterizer(int numCellsX, int numCellsY, double x, double y, double cellSize, int norm, int numRegions) {
+		if (numCellsX <= 0 || numCellsY <= 0) {
+			throw new IllegalArgumentException("The grid must contain at least one cell");
+		}
+		this.numCellsX = numCellsX;
+		this.numCellsY = numCellsY;
+		this.x = x;
+		this.y = y;
+		this.cellSize = cellSize;
+		this.norm = norm;
+		this.numRegions = numRegions;
+	}
+	
+	/**
+	 * Label every cell with the region of the nearest site (if the distances are equal the site with the lower index) and collect the
+	 * boundary cells.
+	 */
+	public void rasterize(double[] siteX, double[] siteY, int[] siteRegions) {
+		if (siteX.length == 0 || siteX.length != siteY.length || siteX.length != siteRegions.length) {
+			throw new IllegalArgumentException("At least one site (with an x and y coordinate and a region) is needed");
+		}
+		this.siteX = siteX;
+		this.siteY = siteY;
+		this.siteRegions = siteRegions;
+		this.labels = new int[numCellsX * numCellsY];
+		run();
+	}
+	
+	/**
+	 * Only collect the boundary cells of the labels (the regions of the cells, stored row by row).
+	 */
+	public void collectBoundaryCells(int[] labels) {
+		if (labels.length != numCellsX * numCellsY) {
+			throw new IllegalArgumentException("The number of labels doesn't match the size of the grid");
+		}
+		this.siteX = null;
+		this.labels = labels;
+		run();
+	}
+	
+	private void run() {
+		Boundaries boundaries = ForkJoinPool.commonPool().invoke(new RowTask(0, numCellsY));
+		boundaryCells = new int[numRegions][];
+		for (int region = 0; region < numRegions; region++) {
+			boundaryCells[region] = Arrays.copyOf(boundaries.cells[region], boundaries.numCells[region]);
+		}
+	}
+	
+	/**
+	 * The region of every cell (row by row).
+	 */
+	public int[] getLabels() {
+		return labels;
+	}
+	
+	/**
+	 * The boundary cells of a region (in the order of the rows).
+	 */
+	public int[] getBoundaryCells(int region) {
+		return boundaryCells[region];
+	}
+	
+	/**
+	 * The boundary cells of every region, in growing arrays.
+	 */
+	private class Boundaries {
+		
+		private int[][] cells = new int[numRegions][8];
+		private int[] numCells = new int[numRegions];
+		
+		private void add(int region, int cell) {
+			if (numCells[region] == cells[region].length) {
+				cells[region] = Arrays.copyOf(cells[region], cells[region].length * 2);
+			}
+			cells[region][numCells[region]++] = cell;
+		}
+		
+		/**
+		 * Append the cells of the boundaries of the following rows.
+		 */
+		private Boundaries append(Boundaries following) {
+			for (int region = 0; region < numRegions; region++) {
+				if (numCells[region] + following.numCells[region] > cells[region].length) {
+					cells[region] = Arrays.copyOf(cells[region], numCells[region] + following.numCells[region]);
+				}
+				System.arraycopy(following.cells[region], 0, cells[region], numCells[region], following.numCells[region]);
+				numCells[region] += following.numCells[region];
+			}
+			return this;
+		}
+	}
+	
+	private class RowTask extends RecursiveTask<Boundaries> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		private final int fromRow;
+		private final int toRow;
+		
+		public RowTask(int fromRow, int toRow) {
+			this.fromRow = fromRow;
+			this.toRow = toRow;
+		}
+		
+		@Override
+		protected Boundaries compute() {
+			if (toRow - fromRow > ROWS_PER_TASK) {
+				int middle = (fromRow + toRow) >>> 1;
+				RowTask lower = new RowTask(middle, toRow);
+				lower.fork();
+				Boundaries upper = new RowTask(fromRow, middle).compute();
+				return upper.append(lower.join());
+			}
+			
+			// label the rows of the block (and the rows above and below it, that belong to other blocks)
+			int[] rowAbove = fromRow > 0 ? labelRow(fromRow - 1, new int[numCellsX], 0) : null;
+			if (siteX != null) {
+				for (int row = fromRow; row < toRow; row++) {
+					labelRow(row, labels, row * numCellsX);
+				}
+			}
+			int[] rowBelow = toRow < numCellsY ? labelRow(toRow, new int[numCellsX], 0) : null;
+			
+			Boundaries boundaries = new Boundaries();
+			for (int row = fromRow; row < toRow; row++) {
+				for (int column = 0; column < numCellsX; column++) {
+					int cell = row * numCellsX + column;
+					int label = labels[cell];
+					boolean boundary = row == 0 || row == numCellsY - 1 || column == 0 || column == numCellsX - 1 //
+							|| labels[cell - 1] != label || labels[cell + 1] != label //
+							|| (row == fromRow ? rowAbove[column] : labels[cell - numCellsX]) != label //
+							|| (row == toRow - 1 ? rowBelow[column] : labels[cell + numCellsX]) != label;
+					if (boundary) {
+						boundaries.add(label, cell);
+					}
+				}
+			}
+			return boundaries;
+		}
+		
+		/**
+		 * Label the cells of a row, and write the labels to the array (starting at the offset).
+		 */
+		private int[] labelRow(int row, int[] rowLabels, int offset) {
+			if (siteX == null) {
+				System.arraycopy(labels, row * numCellsX, rowLabels, offset, numCellsX);
+				return rowLabels;
+			}
+			
+			double cellY = y + row * cellSize;
+			for (int column = 0; column < numCellsX; column++) {
+				double cellX = x + column * cellSize;
+				int nearest = 0;
+				double nearestDistance = Double.POSITIVE_INFINITY;
+				for (int site = 0; site < siteX.length; site++) {
+					double distance = JumpFloodVoronoi.distance(siteX[site] - cellX, siteY[site] - cellY, norm);
+					if (distance < nearestDistance) {
+						nearest = site;
+						nearestDistance = distance;
+					}
+				}
+				rowLabels[offset + column] = siteRegions[nearest];
+			}
+			return rowLabels;
+		}
+	}
+}
@@ -8,18 +8,39 @@ import com.codingame.game.util.Vector2D;
 
 /**
  * Class to unify route handling (whether they are direct or with a warp along the borders)
+ * 
+ * The lengths of the stitches are calculated once, when the route is created (the positions of a route must not be changed).
  */
 public class Route {
 	
 	private List<Pair<Vector2D, Vector2D>> stitches = new ArrayList<Pair<Vector2D, Vector2D>>();
 	
+	private double[] stitchLengths;
+	private double[] cumulativeLengths; // the length of the route up to the end of every stitch
+	private double totalLength;
+	
 	public Route(Vector2D start, Vector2D end) {
 		stitches.add(Pair.of(start, end));
+		calculateLengths();
 	}
 	
 	public Route(Vector2D start, Vector2D intermediate1, Vector2D intermediate2, Vector2D end) {
 		stitches.add(Pair.of(start, intermediate1));
 		stitches.add(Pair.of(intermediate2, end));
+		calculateLengths();
+	}
+	
+	private void calculateLengths() {
+		stitchLengths = new double[stitches.size()];
+		cumulativeLengths = new double[stitches.size()];
+		double sumLength = 0;
+		for (int i = 0; i < stitches.size(); i++) {
+			Pair<Vector2D, Vector2D> stitch = stitches.get(i);
+			stitchLengths[i] = stitch.getKey().distance(stitch.getValue());
+			sumLength += stitchLengths[i];
+			cumulativeLengths[i] = sumLength;
+		}
+		totalLength = sumLength;
 	}
 	
 	public boolean isTrivialRoute() {
@@ -93,39 +114,49 @@ public class Route {
 	 * Estimate the coordinates (x,y) of the relative position [0; 1] on the route. 
 	 */
 	public Vector2D estimatePosition(double relPosition) {
-		double totalLength = estimateTotalLength();
-		double traveled = totalLength * relPosition;
-		double sumLength = 0;
-		
+		return estimatePosition(relPosition, new Vector2D());
+	}
+	
+	/**
+	 * Estimate the coordinates (x,y) of the relative position [0; 1] on the route, without creating a new vector.
+	 * 
+	 * @param result
+	 *        The vector, the position is written to
+	 * 
+	 * @return The result vector
+	 */
+	public Vector2D estimatePosition(double relPosition, Vector2D result) {
 		if (relPosition <= 0) {
-			return stitches.get(0).getKey();
+			return setPosition(result, stitches.get(0).getKey());
 		} else if (relPosition >= 1) {
-			return stitches.get(stitches.size()-1).getValue();
+			return setPosition(result, stitches.get(stitches.size()-1).getValue());
 		}
 		
-		for (int i = 0; i < stitches.size(); i++) {
+		int i = getStitchIndex(relPosition);
+		if (cumulativeLengths[i] > totalLength * relPosition) {
 			Pair<Vector2D, Vector2D> stitch = stitches.get(i);
-			double length = stitch.getKey().distance(stitch.getValue());
-			
-			sumLength += length;
+			double relOffset = (cumulativeLengths[i]-stitchLengths[i])/totalLength;
+			double factor = stitches.size()*(relPosition - relOffset);
 			
-			if (sumLength > traveled) {
-				double relOffset = (sumLength-length)/totalLength;
-				
-				return stitch.getKey().add(stitch.getKey().vectorTo(stitch.getValue()).mult(stitches.size()*(relPosition - relOffset)));
-			}
+			result.x = stitch.getKey().x + (stitch.getValue().x - stitch.getKey().x) * factor;
+			result.y = stitch.getKey().y + (stitch.getValue().y - stitch.getKey().y) * factor;
+			return result;
 		}
 		
-		return stitches.get(stitches.size()-1).getValue();
+		return setPosition(result, stitches.get(stitches.size()-1).getValue());
+	}
+	
+	private Vector2D setPosition(Vector2D result, Vector2D position) {
+		result.x = position.x;
+		result.y = position.y;
+		return result;
 	}
 	
 	/**
 	 * Estimate the index of the stitch, where the relative position [0; 1] lies on. 
 	 */
 	private int getStitchIndex(double relativePosition) {
-		double totalLength = estimateTotalLength();
 		double traveled = totalLength * relativePosition;
-		double sumLength = 0;
 		
 		if (relativePosition <= 0) {
 			return 0;
@@ -134,21 +165,12 @@ public class Route {
 		}
 		
 		for (int i = 0; i < stitches.size(); i++) {
-			Pair<Vector2D, Vector2D> stitch = stitches.get(i);
-			double length = stitch.getKey().distance(stitch.getValue());
-			
-			sumLength += length;
-			
 			// do we overtake the relative position?
-			if (sumLength > traveled) {
+			if (cumulativeLengths[i] > traveled) {
 				return i;
 			}
 		}
 		
 		return stitches.size() - 1;
 	}
-	
-	private double estimateTotalLength() {
-		return stitches.stream().mapToDouble(pair -> pair.getKey().distance(pair.getValue())).sum();
-	}
 };
\ No newline at end of file
@@ -9,6 +9,8 @@ import com.codingame.game.util.Vector2D;
 
 /**
  * Collection of routes. Simplified, hidden creation and easy access.
+ * 
+ * The routes are created once per connection (and direction), so their lengths are only calculated once.
  *
  */
 public class TroopNavigator {
@@ -40,7 +40,7 @@ import com.codingame.gameengine.module.entities.Text.FontWeight;
 /**
  * Draws the game state to the view.
  */
-public class View {
+public class View implements GameView {
 	
 	public static final int FRAME_WIDTH = 1920;
 	public static final int FRAME_HEIGHT = 1080;
@@ -51,6 +51,9 @@ public class View {
 	public static final int GAME_FIELD_HEIGHT = 860;
 	
 	private static final int TEXT_TROOPS_Y_OFFSET = 25;
+	private static final int BULLET_Z_INDEX = 10; // the bullets are created before the fields, but are drawn above them
+	
+	private static final int REGION_GRID_JUMP_FLOODING_MIN_FIELDS = 200; // comparing all fields for every grid point is faster for smaller maps
 	
 	private GraphicEntityModule graphicEntityModule;
 	
@@ -68,22 +71,28 @@ public class View {
 	private Map<Field, Text> deployText;
 	private Map<Pair<Field, Field>, Pair<SpriteAnimation, SpriteAnimation>> moveAnimations;
 	private Map<Pair<Field, Field>, Text> moveText;
+	private Map<Pair<Field, Field>, Circle> bullets; // one bullet per connection and direction, that is reused in every turn
 	private Map<Region, Pair<Text, Text>> regionLegendTexts;
 	private Text statisticsPlayer1;
 	private Text statisticsPlayer2;
 	
 	public View(GraphicEntityModule graphicEntityModule, GameMap map, Map<Field, Vector2D> initialPositions) {
+		this(graphicEntityModule, placeFields(map, initialPositions));
+	}
+	
+	/**
+	 * Create the view with field positions that were already placed by {@link #placeFields(GameMap, Map)} (e.g. loaded from a map library).
+	 */
+	public View(GraphicEntityModule graphicEntityModule, Map<Field, Vector2D> placedFieldPositions) {
 		this.graphicEntityModule = graphicEntityModule;
 		
-		initialPositions = addFieldOffset(initialPositions);
-		cachedFieldPositions = initialPositions;
-		Set<PositionedField> positionedFields = calculateFieldPositions(map, initialPositions);
-		cachedFieldPositions = positionedFields.stream().collect(Collectors.toMap(PositionedField::getField, PositionedField::pos));
+		cachedFieldPositions = placedFieldPositions;
 		
 		fieldText = new HashMap<Field, Text>();
 		deployText = new HashMap<Field, Text>();
 		moveAnimations = new HashMap<Pair<Field, Field>, Pair<SpriteAnimation, SpriteAnimation>>();
 		moveText = new HashMap<Pair<Field, Field>, Text>();
+		bullets = new HashMap<Pair<Field, Field>, Circle>();
 		pickGraphics = new HashMap<Owner, Sprite>();
 		troopNavi = new TroopNavigator();
 		
@@ -91,14 +100,22 @@ public class View {
 		gunner_left_right_red = graphicEntityModule.createSpriteSheetSplitter().setName("Gunner_Red").setOrigCol(0).setOrigRow(0).setImageCount(6).setImagesPerRow(6).setHeight(48).setWidth(48).setSourceImage("Gunner_Red_Run.png").split();
 	}
 	
-	private Map<Field, Vector2D> addFieldOffset(Map<Field, Vector2D> initialPositions) {
+	/**
+	 * Calculate the positions of the fields in the view from the positions, the map was generated with (using a {@link GraphPlacement}).
+	 */
+	public static Map<Field, Vector2D> placeFields(GameMap map, Map<Field, Vector2D> initialPositions) {
+		Set<PositionedField> positionedFields = calculateFieldPositions(map, addFieldOffset(initialPositions));
+		return positionedFields.stream().collect(Collectors.toMap(PositionedField::getField, PositionedField::pos));
+	}
+	
+	private static Map<Field, Vector2D> addFieldOffset(Map<Field, Vector2D> initialPositions) {
 		Vector2D offset = new Vector2D(GAME_FIELD_X + 50, GAME_FIELD_Y + 50); // +50 so the fields are not pushed to the edge completely
 		return initialPositions.entrySet().stream() //
 				.map(entry -> Pair.of(entry.getKey(), entry.getValue().add(offset))) //
 				.collect(Collectors.toMap(Pair::getKey, Pair::getValue));
 	}
 	
-	private Set<PositionedField> calculateFieldPositions(GameMap map, Map<Field, Vector2D> initialPositions) {
+	private static Set<PositionedField> calculateFieldPositions(GameMap map, Map<Field, Vector2D> initialPositions) {
 		// normalize the initial positions (remove the offset to the drawing game field)
 		Vector2D offset = new Vector2D(GAME_FIELD_X + 50, GAME_FIELD_Y + 50); // +50 so the fields are not pushed to the edge completely
 		initialPositions = initialPositions.entrySet().stream() //
@@ -120,6 +137,7 @@ public class View {
 		graphPlacement.setRepulsiveForce(500f);
 		graphPlacement.setSpringForce(50f);
 		graphPlacement.setClusterForce(50f);
+		graphPlacement.setConvergenceThreshold(0.01f); // the delta cools down fast, so the layout is settled after a few iterations
 		//graphPlacement.setMaxForceFactor(1000);
 		
 		Set<PositionedField> positionedFields = graphPlacement.positionFields();
@@ -135,6 +153,7 @@ public class View {
 	// *** initial textures
 	// **********************************************************************
 	
+	@Override
 	public void drawBackground() {
 		graphicEntityModule.createSprite().setImage("background.png") //
 				.setBaseWidth(FRAME_WIDTH).setBaseHeight(FRAME_HEIGHT);
@@ -163,6 +182,7 @@ public class View {
 				.setBaseWidth(450).setBaseHeight(70);
 	}
 	
+	@Override
 	public void drawPlayerInfos(Player player1, Player player2) {
 		// player 1
 		graphicEntityModule.createRectangle() //
@@ -214,6 +234,7 @@ public class View {
 		colorPlayer2 = player2.getColorToken();
 	}
 	
+	@Override
 	public void drawLegend(Set<Region> regions) {
 		regionLegendTexts = new HashMap<>();
 		Map<Region, Integer> regionColors = getRegionColors(regions);
@@ -239,6 +260,7 @@ public class View {
 		
 	}
 	
+	@Override
 	public void drawRegions(Set<Region> regions) {
 		// for each point, draw point in color of nearest region
 		Map<Region, Integer> coloring = getRegionColors(regions);
@@ -252,6 +274,7 @@ public class View {
 		}
 	}
 	
+	@Override
 	public void drawConnections(Set<Pair<Field, Field>> connections, Set<Region> regions) {
 		Set<Field> fields = connections.stream().flatMap(pair -> Stream.of(pair.getKey(), pair.getValue())).collect(Collectors.toSet());
 		Map<Field, Vector2D> positions = getPositions(fields);
@@ -295,6 +318,10 @@ public class View {
 		text.setAnchor(0.5);
 		text.setFontSize(20);
 		moveText.put(connection, text);
+		
+		// bullet (hidden until the troops fight)
+		Circle bullet = graphicEntityModule.createCircle().setRadius(5).setFillColor(0xFFF000).setZIndex(BULLET_Z_INDEX).setAlpha(0);
+		bullets.put(connection, bullet);
 	}
 	
 	private void drawConnectionLine(Vector2D pos1, Vector2D pos2) {
@@ -305,6 +332,7 @@ public class View {
 				.setLineColor(0x2A914E);
 	}
 	
+	@Override
 	public void drawFields(Set<Field> fields) {
 		Map<Field, Vector2D> positions = getPositions(fields);
 		int fontSize = 40;
@@ -364,6 +392,7 @@ public class View {
 	// *** updated textures
 	// **********************************************************************
 	
+	@Override
 	public void updatePlayerStats(Owner player, int fields, int troops, int deployable) {
 		String statsText = fields + "\n" + troops + "\n" + deployable;
 		
@@ -378,6 +407,7 @@ public class View {
 		}
 	}
 	
+	@Override
 	public void updateFields(Set<Field> fields) {
 		Map<Owner, Integer> ownerColors = getColorForOwner();
 		
@@ -389,13 +419,14 @@ public class View {
 		}
 	}
 	
-	public void updateRegionLegend(Set<Region> regions) {
-		for (Region region : regions) {
+	@Override
+	public void updateRegionLegend(GameMap map) {
+		for (Region region : map.regions) {
 			int color = 0;//black
-			if (region.isConqueredBy(Owner.PLAYER_1)) {
+			if (map.isRegionConqueredBy(region, Owner.PLAYER_1)) {
 				color = colorPlayer1;
 			}
-			else if (region.isConqueredBy(Owner.PLAYER_2)) {
+			else if (map.isRegionConqueredBy(region, Owner.PLAYER_2)) {
 				color = colorPlayer2;
 			}
 			Pair<Text, Text> texts = regionLegendTexts.get(region);
@@ -408,6 +439,7 @@ public class View {
 	// *** animations
 	// **********************************************************************
 	
+	@Override
 	public void animatePicks(Set<Field> fields, Set<PickEvent> picksPerformed) {
 		Map<Field, Vector2D> positions = getPositions(fields);
 		
@@ -440,6 +472,7 @@ public class View {
 		}
 	}
 	
+	@Override
 	public void animateDeployments(List<Action> actions1, List<Action> actions2) {
 		List<Action> actions = new ArrayList<Action>();
 		
@@ -461,9 +494,12 @@ public class View {
 		}
 	}
 	
+	@Override
 	public void animateMovements(MovementEvents events, Set<Field> fields) {
 		Set<Pair<Field, Field>> keys = events.getKeys();
 		double relativeFightPosition = 0.4; // 40%:= position on a track [0; 1], where troops stand still to shoot
+		Vector2D shootFrom = new Vector2D(); // reused for all fights (the routes write the positions into them)
+		Vector2D shootAt = new Vector2D();
 		
 		for (Pair<Field, Field> key : keys) {
 			Field f1 = key.getKey();
@@ -502,15 +538,15 @@ public class View {
 						
 						// add shooting animation
 						ConnectionFinder estimatedConnection = null;
-						Vector2D shootFrom = route.estimatePosition(0.4);
-						Vector2D shootAt = troopNavi.getRoute(step.fightWithMovement).estimatePosition(0.4);
+						route.estimatePosition(relativeFightPosition, shootFrom);
+						troopNavi.getRoute(step.fightWithMovement).estimatePosition(relativeFightPosition, shootAt);
 						boolean makeDirectBullet = true;
 						
-						// create bullet (consider caching/reusing bullets, if we have to much graphical data)
-						Circle bullet = graphicEntityModule.createCircle();
+						// show the bullet of this connection at the start of the step (without moving it from its last position)
+						Circle bullet = bullets.get(key);
 						double bulletStartTime = t - stepDuration;
-						bullet.setX((int) shootFrom.x).setY((int) shootFrom.y).setRadius(5).setFillColor(0xFFF000);
-						graphicEntityModule.commitEntityState(t - stepDuration, bullet);
+						bullet.setX((int) shootFrom.x, Curve.NONE).setY((int) shootFrom.y, Curve.NONE).setAlpha(1, Curve.NONE);
+						graphicEntityModule.commitEntityState(bulletStartTime, bullet);
 						
 						// if one of the troops paths is indirect, consider indirect bullets
 						if (!route.isTrivialRoute() || !troopNavi.getRoute(step.fightWithMovement).isTrivialRoute()) {
@@ -538,9 +574,9 @@ public class View {
 							}
 						}
 						
-						// let bullet disappear
-						bullet.setAlpha(0, Curve.IMMEDIATE);
-						graphicEntityModule.commitEntityState(1, bullet);
+						// let bullet disappear when it hits, so it can be reused in the next fight
+						bullet.setAlpha(0, Curve.NONE);
+						graphicEntityModule.commitEntityState(t, bullet);
 						break;
 					case FORWARD:
 						if (lastStep) { // move to the end position (from starting or fighting position)
@@ -577,6 +613,7 @@ public class View {
 		}
 	}
 	
+	@Override
 	public void resetAnimations(TurnType turnType) {
 		// Remove deployment text again
 		if (turnType != TurnType.DEPLOY_TROOPS) {
@@ -661,6 +698,9 @@ public class View {
 		grid.setY(GAME_FIELD_Y);
 		grid.setResolution(2);
 		grid.setDistNorm(1);
+		grid.setVoronoiMethod(fields.size() >= REGION_GRID_JUMP_FLOODING_MIN_FIELDS ? RegionGrid.VoronoiMethod.JUMP_FLOODING
+				: RegionGrid.VoronoiMethod.NEAREST_FIELD_PARALLEL);
+		grid.setSimplificationTolerance(2); // removes the steps of the grid
 		
 		return grid.createRegionPolygons(graphicEntityModule);
 	}
@@ -2,26 +2,52 @@ package com.codingame.game.view.map;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Optional;
+import java.util.stream.IntStream;
 
+import com.codingame.game.build.RandomUtil;
 import com.codingame.game.util.Vector2D;
 
 /**
  * Cluster analysis of points using k-means or x-means.
+ * 
+ * The centroids are initialized with the first k points, or with the k-means++ seeding if a random instance is given (the first
+ * centroid is a random point and every further centroid is chosen with a probability proportional to the squared distance to the
+ * nearest centroid that was already chosen). The k-means++ seeding usually needs less iterations and finds better clusters.
+ * 
+ * The points are assigned to the nearest centroid in a loop on primitive arrays, that is executed in parallel for large inputs.
  */
 public class ClusterAnalyzer {
 	
+	/**
+	 * The minimum number of points for which the points are assigned to the centroids in parallel.
+	 */
+	public static final int PARALLEL_ASSIGNMENT_MIN_POINTS = 8192;
+	
+	private static final int MAX_ITERATIONS = 100;
+	
 	private ClusterAnalyzer() {}
 	
 	public static <T extends Positioned<?>> List<Cluster<T>> getClusters(List<T> allPositions, int minClusters, int maxClusters, double minDistBetweenCentroids) {
-		List<Cluster<T>> clusters = getClusters(allPositions, minClusters);
+		return getClusters(allPositions, minClusters, maxClusters, minDistBetweenCentroids, null);
+	}
+	
+	/**
+	 * Find clusters with x-means: the clusters are split (using k-means with two clusters) as long as the centroids of the split
+	 * clusters are further away than minDistBetweenCentroids (and the maximum number of clusters is not reached).
+	 * 
+	 * @param random
+	 *        The random instance for the k-means++ seeding, or null to initialize the centroids with the first points
+	 */
+	public static <T extends Positioned<?>> List<Cluster<T>> getClusters(List<T> allPositions, int minClusters, int maxClusters, double minDistBetweenCentroids,
+			RandomUtil random) {
+		List<Cluster<T>> clusters = getClusters(allPositions, minClusters, random);
 		boolean changing = true;
 		while (clusters.size() < maxClusters && changing) {
 			changing = false;
 			for (int i = 0; i < clusters.size() && clusters.size() < maxClusters; i++) {
 				Cluster<T> cluster = clusters.get(i);
 				if (cluster.entries.size() >= 2) {
-					List<Cluster<T>> splitedCluster = getClusters(cluster.entries, 2);
+					List<Cluster<T>> splitedCluster = getClusters(cluster.entries, 2, random);
 					if (splitedCluster.get(0).centroid.distance(splitedCluster.get(1).centroid) > minDistBetweenCentroids) {
 						//found new clusters
 						clusters.remove(i);
@@ -37,50 +63,162 @@ public class ClusterAnalyzer {
 	}
 	
 	public static <T extends Positioned<?>> List<Cluster<T>> getClusters(List<T> allPositions, int numClusters) {
-		List<Cluster<T>> clusters = new ArrayList<Cluster<T>>(numClusters);
+		return getClusters(allPositions, numClusters, null);
+	}
+	
+	/**
+	 * Find clusters with k-means.
+	 * 
+	 * @param random
+	 *        The random instance for the k-means++ seeding, or null to initialize the centroids with the first points
+	 */
+	public static <T extends Positioned<?>> List<Cluster<T>> getClusters(List<T> allPositions, int numClusters, RandomUtil random) {
 		//initialize
 		if (allPositions.size() < numClusters) {
 			throw new IllegalArgumentException("Not enough units for the number of clusters");
 		}
-		for (int i = 0; i < numClusters; i++) {
-			Cluster<T> cluster = new Cluster<T>();
-			cluster.centroid = allPositions.get(i).pos();
-			clusters.add(cluster);
+		if (numClusters < 0 || (numClusters == 0 && !allPositions.isEmpty())) {
+			throw new IllegalArgumentException("No nearest cluster found");
+		}
+		
+		int numPoints = allPositions.size();
+		double[] x = new double[numPoints];
+		double[] y = new double[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			Vector2D position = allPositions.get(i).pos();
+			x[i] = position.x;
+			y[i] = position.y;
 		}
+		
+		double[] centroidX = new double[numClusters];
+		double[] centroidY = new double[numClusters];
+		if (random == null) {
+			for (int c = 0; c < numClusters; c++) {
+				centroidX[c] = x[c];
+				centroidY[c] = y[c];
+			}
+		}
+		else if (numClusters > 0) {
+			chooseInitialCentroids(x, y, centroidX, centroidY, random);
+		}
+		
+		int[] assignment = new int[numPoints];
+		double[] sumX = new double[numClusters];
+		double[] sumY = new double[numClusters];
+		int[] sizes = new int[numClusters];
+		
 		boolean changing = true;
-		List<Vector2D> startCentroids = new ArrayList<Vector2D>();
-		for (int j = 0; j < 100 && changing; j++) {
-			startCentroids.clear();
-			for (int i = 0; i < clusters.size(); i++) {
-				startCentroids.add(clusters.get(i).centroid);
-				clusters.get(i).clear();
+		for (int j = 0; j < MAX_ITERATIONS && changing; j++) {
+			//find the nearest centroid for all points
+			if (numPoints >= PARALLEL_ASSIGNMENT_MIN_POINTS) {
+				IntStream.range(0, numPoints).parallel().forEach(i -> assignment[i] = findNearestCentroid(x[i], y[i], centroidX, centroidY));
 			}
-			//find the nearest centroid for all T
-			for (T t : allPositions) {
-				Optional<Cluster<T>> nearest = clusters.stream().sorted((c1, c2) -> Double.compare(t.pos().distance(c1.centroid), t.pos().distance(c2.centroid))).findFirst();
-				if (nearest.isPresent()) {
-					nearest.get().entries.add(t);
-				}
-				else {
-					throw new IllegalArgumentException("No nearest cluster found");
+			else {
+				for (int i = 0; i < numPoints; i++) {
+					assignment[i] = findNearestCentroid(x[i], y[i], centroidX, centroidY);
 				}
 			}
-			//calculate new centroid as middle of all T in the cluster
-			for (Cluster<T> cluster : clusters) {
-				Vector2D newCentroid = new Vector2D(0, 0);
-				for (T t : cluster.entries) {
-					newCentroid.x += t.pos().x;
-					newCentroid.y += t.pos().y;
-				}
-				newCentroid.x /= cluster.entries.size();
-				newCentroid.y /= cluster.entries.size();
-				cluster.centroid = newCentroid;
+			
+			//calculate new centroid as middle of all points in the cluster (summed up in the order of the points)
+			for (int c = 0; c < numClusters; c++) {
+				sumX[c] = 0;
+				sumY[c] = 0;
+				sizes[c] = 0;
+			}
+			for (int i = 0; i < numPoints; i++) {
+				sumX[assignment[i]] += x[i];
+				sumY[assignment[i]] += y[i];
+				sizes[assignment[i]]++;
 			}
 			changing = false;
-			for (int i = 0; i < clusters.size(); i++) {
-				changing |= !clusters.get(i).centroid.equals(startCentroids.get(i));
+			for (int c = 0; c < numClusters; c++) {
+				double newX = sumX[c] / sizes[c];
+				double newY = sumY[c] / sizes[c];
+				// same check as Vector2D.equals (so an empty cluster with a NaN centroid is always changing)
+				changing |= !(Math.abs(newX - centroidX[c]) < 1e-8 && Math.abs(newY - centroidY[c]) < 1e-8);
+				centroidX[c] = newX;
+				centroidY[c] = newY;
 			}
 		}
+		
+		List<Cluster<T>> clusters = new ArrayList<Cluster<T>>(numClusters);
+		for (int c = 0; c < numClusters; c++) {
+			Cluster<T> cluster = new Cluster<T>();
+			cluster.centroid = new Vector2D(centroidX[c], centroidY[c]);
+			clusters.add(cluster);
+		}
+		for (int i = 0; i < numPoints; i++) {
+			clusters.get(assignment[i]).entries.add(allPositions.get(i));
+		}
 		return clusters;
 	}
+	
+	/**
+	 * Find the index of the nearest centroid (the first one if the distances are equal). Centroids of empty clusters (NaN) are never
+	 * the nearest, unless all centroids are NaN.
+	 */
+	private static int findNearestCentroid(double px, double py, double[] centroidX, double[] centroidY) {
+		int nearest = 0;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int c = 0; c < centroidX.length; c++) {
+			double dx = px - centroidX[c];
+			double dy = py - centroidY[c];
+			double distance = dx * dx + dy * dy;
+			if (distance < nearestDistance) {
+				nearest = c;
+				nearestDistance = distance;
+			}
+		}
+		return nearest;
+	}
+	
+	/**
+	 * Choose the initial centroids with the k-means++ seeding.
+	 */
+	private static void chooseInitialCentroids(double[] x, double[] y, double[] centroidX, double[] centroidY, RandomUtil random) {
+		int numPoints = x.length;
+		int first = random.nextInt(numPoints);
+		centroidX[0] = x[first];
+		centroidY[0] = y[first];
+		
+		// the squared distance of every point to the nearest chosen centroid
+		double[] distances = new double[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			distances[i] = squaredDistance(x[i], y[i], centroidX[0], centroidY[0]);
+		}
+		
+		for (int c = 1; c < centroidX.length; c++) {
+			double totalDistance = 0;
+			for (int i = 0; i < numPoints; i++) {
+				totalDistance += distances[i];
+			}
+			
+			int chosen;
+			if (totalDistance > 0) {
+				double target = random.nextFloat() * totalDistance;
+				chosen = 0;
+				double cumulated = distances[0];
+				while (cumulated <= target && chosen < numPoints - 1) {
+					chosen++;
+					cumulated += distances[chosen];
+				}
+				while (distances[chosen] == 0) {
+					chosen--; // rounding errors at the end of the cumulated distances (an earlier point has a distance > 0)
+				}
+			}
+			else {
+				chosen = random.nextInt(numPoints); // all points are at the positions of the centroids
+			}
+			
+			centroidX[c] = x[chosen];
+			centroidY[c] = y[chosen];
+			for (int i = 0; i < numPoints; i++) {
+				distances[i] = Math.min(distances[i], squaredDistance(x[i], y[i], centroidX[c], centroidY[c]));
+			}
+		}
+	}
+	
+	private static double squaredDistance(double x1, double y1, double x2, double y2) {
+		return (x1 - x2) * (x1 - x2) + (y1 - y2) * (y1 - y2);
+	}
 }
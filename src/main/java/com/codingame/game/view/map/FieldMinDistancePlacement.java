@@ -1,5 +1,9 @@
 package com.codingame.game.view.map;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
 import java.util.Set;
 
 import com.codingame.game.util.Vector2D;
@@ -8,6 +12,13 @@ import com.codingame.game.view.View;
 
 /**
  * Iterates over the positioned fields after the {@link GraphPlacement} to ensure that the minimum distance between the fields is kept.
+ * 
+ * The fields are stored in a uniform grid with the cell size {@link #MIN_DISTANCE_BETWEEN_FIELDS} (as linked lists in primitive
+ * arrays), so only the fields in the neighbouring cells have to be checked. Fields that had no overlapping field when they were
+ * checked last, and near which no field was moved since, are skipped in the following sweeps.
+ * 
+ * The fields are moved in the same order as if every field was compared with every other field in every sweep. The number of
+ * sweeps is limited to {@link #MAX_ITERATIONS} (if the fields don't fit into the bounds, they are moved forever otherwise).
  */
 public class FieldMinDistancePlacement {
 	
@@ -19,50 +30,270 @@ public class FieldMinDistancePlacement {
 	public static final float FIELD_Y_MIN = 50;
 	public static final float FIELD_Y_MAX = View.GAME_FIELD_HEIGHT - 100;
 	
-	private FieldMinDistancePlacement() {}
+	private final int numFields;
+	private final double[] x;
+	private final double[] y;
+	
+	// the grid: the fields of a cell are a doubly linked list
+	private final double gridMinX;
+	private final double gridMinY;
+	private final int numCellsX;
+	private final int numCellsY;
+	private final int[] cellHead;
+	private final int[] nextInCell;
+	private final int[] previousInCell;
+	private final int[] cellOfField;
+	
+	private final BitSet candidates; // the fields that are checked in the current turn (iterated in the order of the fields)
+	private final int[] cellAddedTurn; // the turn in which the fields of the cell were added to the candidates last
+	private int turn;
+	
+	// a field is settled if it had no overlapping field when it was checked last, and no field was moved into the cells around it since
+	private final int[] cellMoved; // the number of the last move into the cell
+	private final int[] fieldChecked; // the number of moves when the field was checked last without an overlapping field (or -1)
+	private int numMoves;
+	
+	private FieldMinDistancePlacement(List<PositionedField> fields) {
+		numFields = fields.size();
+		x = new double[numFields];
+		y = new double[numFields];
+		
+		// the grid covers the bounds and all initial positions (fields that are moved are moved into the bounds)
+		double minX = FIELD_X_MIN;
+		double minY = FIELD_Y_MIN;
+		double maxX = FIELD_X_MAX;
+		double maxY = FIELD_Y_MAX;
+		for (int i = 0; i < numFields; i++) {
+			x[i] = fields.get(i).pos().x;
+			y[i] = fields.get(i).pos().y;
+			if (isNaN(i)) {
+				continue;
+			}
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		gridMinX = minX;
+		gridMinY = minY;
+		numCellsX = (int) ((maxX - minX) / MIN_DISTANCE_BETWEEN_FIELDS) + 1;
+		numCellsY = (int) ((maxY - minY) / MIN_DISTANCE_BETWEEN_FIELDS) + 1;
+		
+		cellHead = new int[numCellsX * numCellsY];
+		Arrays.fill(cellHead, -1);
+		nextInCell = new int[numFields];
+		previousInCell = new int[numFields];
+		cellOfField = new int[numFields];
+		for (int i = 0; i < numFields; i++) {
+			if (isNaN(i)) {
+				cellOfField[i] = -1;
+			}
+			else {
+				addToCell(i, getCell(x[i], y[i]));
+			}
+		}
+		
+		candidates = new BitSet(numFields);
+		cellAddedTurn = new int[numCellsX * numCellsY];
+		Arrays.fill(cellAddedTurn, -1);
+		
+		cellMoved = new int[numCellsX * numCellsY];
+		fieldChecked = new int[numFields];
+		Arrays.fill(fieldChecked, -1);
+	}
 	
 	public static Set<PositionedField> positionFields(Set<PositionedField> fields) {
+		// the order of the set is kept, so the fields are moved in the same order in every sweep
+		List<PositionedField> fieldList = new ArrayList<>(fields);
+		FieldMinDistancePlacement placement = new FieldMinDistancePlacement(fieldList);
+		
 		int iteration = 0;
 		boolean fieldsMoved = true;
 		
 		while (fieldsMoved && iteration < MAX_ITERATIONS) {
 			fieldsMoved = false;
 			
-			for (PositionedField field : fields) {
-				for (PositionedField other : fields) {
-					if (field != other && field.pos().distance(other.pos()) < MIN_DISTANCE_BETWEEN_FIELDS) {
-						Vector2D fromFieldToOther = field.pos().vectorTo(other.pos());
-						double distance = field.pos().distance(other.pos());
-						double additionalSpaceNeeded = MIN_DISTANCE_BETWEEN_FIELDS - distance + 0.1f; // +0.1f to not move the same fields again, because of rounding errors
-						
-						// move both fields away from each other
-						field.setPosition(field.pos().sub(fromFieldToOther.setLength(additionalSpaceNeeded / 2)));
-						other.setPosition(other.pos().add(fromFieldToOther.setLength(additionalSpaceNeeded / 2)));
-						
-						moveFieldIntoBounds(field);
-						moveFieldIntoBounds(other);
-						
-						fieldsMoved = true;
-					}
+			for (int field = 0; field < placement.numFields; field++) {
+				if (!placement.isSettled(field)) {
+					fieldsMoved |= placement.separateField(field);
 				}
 			}
+			
+			iteration++;
+		}
+		
+		for (int i = 0; i < fieldList.size(); i++) {
+			fieldList.get(i).setPosition(new Vector2D(placement.x[i], placement.y[i]));
 		}
 		
 		return fields;
 	}
 	
-	private static void moveFieldIntoBounds(PositionedField field) {
-		if (field.pos().x < FIELD_X_MIN) {
-			field.pos().x = FIELD_X_MIN;
+	/**
+	 * Move the field and all fields that are too near to the field (in the order of the fields) away from each other.
+	 * 
+	 * @return true if any field was moved
+	 */
+	private boolean separateField(int field) {
+		boolean moved = false;
+		
+		// only the fields in the cells around the field can be too near, and only the field and the field it's moved away from are moved,
+		// so the candidates only change if the field is moved to another cell
+		turn++;
+		addCandidates(field, 0);
+		int cell = cellOfField[field];
+		for (int other = candidates.nextSetBit(0); other != -1; other = candidates.nextSetBit(other + 1)) {
+			candidates.clear(other);
+			if (distance(field, other) < MIN_DISTANCE_BETWEEN_FIELDS) {
+				moveApart(field, other);
+				moved = true;
+				
+				if (cellOfField[field] != cell) {
+					cell = cellOfField[field];
+					addCandidates(field, other + 1);
+				}
+			}
+		}
+		
+		fieldChecked[field] = hasOverlappingField(field) ? -1 : numMoves;
+		return moved;
+	}
+	
+	/**
+	 * Add the fields in the cells around the field, that have an index of at least minIndex, to the candidates (skipping the cells that
+	 * were added in this turn already - the only fields that are moved into them are the field and fields with a lower index).
+	 */
+	private void addCandidates(int field, int minIndex) {
+		int cell = cellOfField[field];
+		int cellX = cell % numCellsX;
+		int cellY = cell / numCellsX;
+		for (int cy = Math.max(cellY - 1, 0); cy <= Math.min(cellY + 1, numCellsY - 1); cy++) {
+			for (int cx = Math.max(cellX - 1, 0); cx <= Math.min(cellX + 1, numCellsX - 1); cx++) {
+				int neighbourCell = cy * numCellsX + cx;
+				if (cellAddedTurn[neighbourCell] == turn) {
+					continue;
+				}
+				cellAddedTurn[neighbourCell] = turn;
+				for (int other = cellHead[neighbourCell]; other != -1; other = nextInCell[other]) {
+					if (other != field && other >= minIndex) {
+						candidates.set(other);
+					}
+				}
+			}
+		}
+	}
+	
+	private boolean hasOverlappingField(int field) {
+		int cell = cellOfField[field];
+		int cellX = cell % numCellsX;
+		int cellY = cell / numCellsX;
+		for (int cy = Math.max(cellY - 1, 0); cy <= Math.min(cellY + 1, numCellsY - 1); cy++) {
+			for (int cx = Math.max(cellX - 1, 0); cx <= Math.min(cellX + 1, numCellsX - 1); cx++) {
+				for (int other = cellHead[cy * numCellsX + cx]; other != -1; other = nextInCell[other]) {
+					if (other != field && distance(field, other) < MIN_DISTANCE_BETWEEN_FIELDS) {
+						return true;
+					}
+				}
+			}
+		}
+		return false;
+	}
+	
+	private boolean isSettled(int field) {
+		if (cellOfField[field] == -1) {
+			return true; // the distance to a field with a NaN position is NaN, so it's never moved again
+		}
+		if (fieldChecked[field] == -1) {
+			return false;
+		}
+		
+		int cell = cellOfField[field];
+		int cellX = cell % numCellsX;
+		int cellY = cell / numCellsX;
+		for (int cy = Math.max(cellY - 1, 0); cy <= Math.min(cellY + 1, numCellsY - 1); cy++) {
+			for (int cx = Math.max(cellX - 1, 0); cx <= Math.min(cellX + 1, numCellsX - 1); cx++) {
+				if (cellMoved[cy * numCellsX + cx] > fieldChecked[field]) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+	
+	private void moveApart(int field, int other) {
+		double fromFieldToOtherX = x[other] - x[field];
+		double fromFieldToOtherY = y[other] - y[field];
+		double distance = distance(field, other);
+		double additionalSpaceNeeded = MIN_DISTANCE_BETWEEN_FIELDS - distance + 0.1f; // +0.1f to not move the same fields again, because of rounding errors
+		
+		// move both fields away from each other
+		double length = Math.hypot(fromFieldToOtherX, fromFieldToOtherY);
+		double moveX = fromFieldToOtherX * (additionalSpaceNeeded / 2) / length;
+		double moveY = fromFieldToOtherY * (additionalSpaceNeeded / 2) / length;
+		moveField(field, x[field] - moveX, y[field] - moveY);
+		moveField(other, x[other] + moveX, y[other] + moveY);
+	}
+	
+	/**
+	 * Move the field to the position (moved into the bounds).
+	 */
+	private void moveField(int field, double posX, double posY) {
+		x[field] = Math.min(Math.max(posX, FIELD_X_MIN), FIELD_X_MAX);
+		y[field] = Math.min(Math.max(posY, FIELD_Y_MIN), FIELD_Y_MAX);
+		if (isNaN(field)) {
+			// fields at the same position can't be moved apart (like the comparisons in moveFieldIntoBounds the NaN is kept), and
+			// fields at a NaN position are never moved again, so they are removed from the grid
+			if (cellOfField[field] != -1) {
+				removeFromCell(field);
+				cellOfField[field] = -1;
+			}
+			return;
+		}
+		
+		int cell = getCell(x[field], y[field]);
+		if (cell != cellOfField[field]) {
+			removeFromCell(field);
+			addToCell(field, cell);
+		}
+		cellMoved[cell] = ++numMoves;
+	}
+	
+	private double distance(int field1, int field2) {
+		double dx = x[field1] - x[field2];
+		double dy = y[field1] - y[field2];
+		return Math.sqrt(dx * dx + dy * dy);
+	}
+	
+	private boolean isNaN(int field) {
+		return Double.isNaN(x[field]) || Double.isNaN(y[field]);
+	}
+	
+	private int getCell(double posX, double posY) {
+		int cellX = Math.max(0, Math.min(numCellsX - 1, (int) ((posX - gridMinX) / MIN_DISTANCE_BETWEEN_FIELDS)));
+		int cellY = Math.max(0, Math.min(numCellsY - 1, (int) ((posY - gridMinY) / MIN_DISTANCE_BETWEEN_FIELDS)));
+		return cellY * numCellsX + cellX;
+	}
+	
+	private void addToCell(int field, int cell) {
+		cellOfField[field] = cell;
+		previousInCell[field] = -1;
+		nextInCell[field] = cellHead[cell];
+		if (cellHead[cell] != -1) {
+			previousInCell[cellHead[cell]] = field;
 		}
-		if (field.pos().x > FIELD_X_MAX) {
-			field.pos().x = FIELD_X_MAX;
+		cellHead[cell] = field;
+	}
+	
+	private void removeFromCell(int field) {
+		int cell = cellOfField[field];
+		if (previousInCell[field] != -1) {
+			nextInCell[previousInCell[field]] = nextInCell[field];
 		}
-		if (field.pos().y < FIELD_Y_MIN) {
-			field.pos().y = FIELD_Y_MIN;
+		else {
+			cellHead[cell] = nextInCell[field];
 		}
-		if (field.pos().y > FIELD_Y_MAX) {
-			field.pos().y = FIELD_Y_MAX;
+		if (nextInCell[field] != -1) {
+			previousInCell[nextInCell[field]] = previousInCell[field];
 		}
 	}
 }
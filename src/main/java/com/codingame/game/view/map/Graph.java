@@ -1,6 +1,7 @@
 package com.codingame.game.view.map;
 
 import java.util.Set;
+import java.util.stream.Collectors;
 
 public interface Graph<T extends Positioned<?>> {
 	
@@ -8,5 +9,13 @@ public interface Graph<T extends Positioned<?>> {
 	
 	public boolean isFieldsConnected(T field1, T field2);
 	
+	/**
+	 * Get all fields that are connected to the given field. Implementations that know their adjacency should override this
+	 * method, because the default implementation checks all pairs of fields.
+	 */
+	public default Set<T> getConnectedFields(T field) {
+		return getFields().stream().filter(other -> other != field && isFieldsConnected(field, other)).collect(Collectors.toSet());
+	}
+	
 	public boolean isFieldsInSameCluster(T field1, T field2);
 }
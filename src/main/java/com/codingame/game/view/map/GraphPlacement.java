@@ -1,7 +1,10 @@
 package com.codingame.game.view.map;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -28,6 +31,10 @@ import com.codingame.game.util.Vector2D;
  *   of the iteration (1 means the distance between two nodes; optional)
  * - The 'bounds' in which the nodes have to be arranged (optional; default is no bounds)
  * - The 'variant' of the algorithm that is used (optional)
+ * - A 'convergenceThreshold': the placement stops early, if no node is moved further than this distance in an iteration
+ *   (optional; default is 0, so all iterations are executed)
+ * - Whether an energy trace is recorded, to analyse how many iterations are needed (optional; default is false)
+ * - The 'barnesHutTheta' that controls the accuracy of the approximated repulsive forces in the Barnes-Hut variant (optional)
  * 
  *  Outputs:
  *  The positioned nodes as a {@link Set} of {@link Positioned} objects.
@@ -36,11 +43,17 @@ public class GraphPlacement<T extends Positioned<?>> {
 	
 	public enum Variant {
 		SPRING_EMBEDDER, // repulsive force between non adjacent nodes; attractive force between adjacent and cluster nodes
-		FRUCHTERMAN_REINGOLD; // repulsive force between all nodes; attractive force between adjacent and cluster nodes (more based on distances)
+		FRUCHTERMAN_REINGOLD, // repulsive force between all nodes; attractive force between adjacent and cluster nodes (more based on distances)
+		SPRING_EMBEDDER_BARNES_HUT; // the forces of the spring embedder, but the repulsive forces are approximated with a quadtree (O(n log n) per iteration instead of O(n²))
 	}
 	
 	private interface VariantForceCalculator<T> {
 		
+		/**
+		 * Called at the start of every iteration, before the displacement vectors of the fields are calculated.
+		 */
+		public default void prepareIteration() {}
+		
 		public Vector2D resultingDisplacementVector(T field);
 	}
 	
@@ -60,6 +73,8 @@ public class GraphPlacement<T extends Positioned<?>> {
 	//************************************************************************
 	
 	private int iterations = 100;
+	private float convergenceThreshold = 0; // the placement stops, if the maximum displacement of a node in an iteration is below this threshold
+	private boolean traceEnergy = false;
 	
 	private float idealSpringLength = 1f; // ideal distance between two connected nodes
 	private float idealClusterDistance = 1.5f; // ideal distance between two nodes in the same cluster
@@ -79,9 +94,19 @@ public class GraphPlacement<T extends Positioned<?>> {
 	private float xMax = 0;
 	private float yMax = 0;
 	
+	private float barnesHutTheta = 0.5f; // nodes of the quadtree with size / distance below theta are approximated by their center of mass (0 is exact)
+	
 	private Variant variant = Variant.SPRING_EMBEDDER;
 	private VariantForceCalculator<T> variantImplementation = new SpringEnbedderForceCalculator();
 	
+	//************************************************************************
+	//*** results
+	//************************************************************************
+	
+	private int executedIterations;
+	private double[] energyTrace = new double[0];
+	private int energyTraceLength;
+	
 	//************************************************************************
 	//*** algorithm
 	//************************************************************************
@@ -97,11 +122,7 @@ public class GraphPlacement<T extends Positioned<?>> {
 	private void calculateConnectedFields() {
 		connectedFields = new HashMap<>();
 		for (T field : fields) {
-			for (T other : fields) {
-				if (field != other && graph.isFieldsConnected(field, other)) {
-					connectedFields.computeIfAbsent(field, x -> new HashSet<>()).add(other);
-				}
-			}
+			connectedFields.put(field, graph.getConnectedFields(field));
 		}
 	}
 	
@@ -139,20 +160,38 @@ public class GraphPlacement<T extends Positioned<?>> {
 	public Set<T> positionFields() {
 		float delta_t = delta;
 		
+		executedIterations = 0;
+		energyTraceLength = 0;
+		if (traceEnergy && energyTrace.length < iterations) {
+			energyTrace = new double[iterations];
+		}
+		
 		Map<T, Vector2D> displacementForces = new HashMap<>();
 		for (int i = 0; i < iterations; i++) {
+			variantImplementation.prepareIteration();
+			
 			// collect all displacement forces, so the fields are not moved within the iteration step 
 			for (T field : fields) {
 				displacementForces.put(field, variantImplementation.resultingDisplacementVector(field));
 			}
 			
 			// apply the displacement forces to move the fields
+			double maxDisplacement = 0;
+			double energy = 0;
 			for (T field : fields) {
-				Vector2D displacementVector = displacementForces.get(field).mult(delta_t);
+				Vector2D force = displacementForces.get(field);
+				Vector2D displacementVector = force.mult(delta_t);
 				field.setPosition(field.pos().add(displacementVector));
 				
+				maxDisplacement = Math.max(maxDisplacement, displacementVector.length());
+				energy += force.x * force.x + force.y * force.y;
+				
 				delta_t *= deltaCooldown;
 			}
+			executedIterations++;
+			if (traceEnergy) {
+				energyTrace[energyTraceLength++] = energy;
+			}
 			
 			if (useBounds) {
 				// move nodes back into the given bounds, if they were moved out of the bounds
@@ -173,6 +212,10 @@ public class GraphPlacement<T extends Positioned<?>> {
 					field.setPosition(truncated);
 				}
 			}
+			
+			if (maxDisplacement < convergenceThreshold) {
+				break;
+			}
 		}
 		
 		return fields;
@@ -193,6 +236,46 @@ public class GraphPlacement<T extends Positioned<?>> {
 		this.iterations = iterations;
 	}
 	
+	public float getConvergenceThreshold() {
+		return convergenceThreshold;
+	}
+	
+	/**
+	 * Stop the placement early, if no node is moved further than the threshold in an iteration (the distance is measured before the
+	 * nodes are moved back into the bounds). A threshold of 0 executes all iterations.
+	 */
+	public void setConvergenceThreshold(float convergenceThreshold) {
+		if (convergenceThreshold < 0) {
+			throw new IllegalArgumentException("The convergence threshold cannot be below 0");
+		}
+		this.convergenceThreshold = convergenceThreshold;
+	}
+	
+	public boolean isTraceEnergy() {
+		return traceEnergy;
+	}
+	
+	/**
+	 * Record the energy of the system (the sum of the squared lengths of the displacement forces of all nodes) in every iteration.
+	 */
+	public void setTraceEnergy(boolean traceEnergy) {
+		this.traceEnergy = traceEnergy;
+	}
+	
+	/**
+	 * The number of iterations that were executed in the last placement (less than the iterations, if the placement converged).
+	 */
+	public int getExecutedIterations() {
+		return executedIterations;
+	}
+	
+	/**
+	 * Get the energy of the system in every executed iteration of the last placement (empty if the energy was not traced).
+	 */
+	public double[] getEnergyTrace() {
+		return Arrays.copyOf(energyTrace, energyTraceLength);
+	}
+	
 	public float getIdealSpringLength() {
 		return idealSpringLength;
 	}
@@ -310,6 +393,17 @@ public class GraphPlacement<T extends Positioned<?>> {
 		useBounds = false;
 	}
 	
+	public float getBarnesHutTheta() {
+		return barnesHutTheta;
+	}
+	
+	public void setBarnesHutTheta(float barnesHutTheta) {
+		if (barnesHutTheta < 0) {
+			throw new IllegalArgumentException("The Barnes-Hut theta must be greater than or equal to 0");
+		}
+		this.barnesHutTheta = barnesHutTheta;
+	}
+	
 	public Variant getVariant() {
 		return variant;
 	}
@@ -323,6 +417,9 @@ public class GraphPlacement<T extends Positioned<?>> {
 			case FRUCHTERMAN_REINGOLD:
 				variantImplementation = new FruchtermanReingoldForceCalculator();
 				break;
+			case SPRING_EMBEDDER_BARNES_HUT:
+				variantImplementation = new BarnesHutForceCalculator();
+				break;
 			default:
 				throw new IllegalArgumentException("Unsupported variant type: " + variant);
 		}
@@ -426,6 +523,109 @@ public class GraphPlacement<T extends Positioned<?>> {
 		}
 	}
 	
+	/**
+	 * The forces of the spring embedder, calculated on primitive arrays. The repulsive forces of all nodes are approximated with a
+	 * quadtree (Barnes-Hut), and the (exact) repulsive forces of the connected nodes are subtracted afterwards, because the spring
+	 * embedder has no repulsive force between connected nodes.
+	 */
+	private class BarnesHutForceCalculator implements VariantForceCalculator<T> {
+		
+		private final Map<T, Integer> indices;
+		
+		// the connected nodes and the cluster nodes of every node in a compressed layout (see ConnectionIndex)
+		private final int[] neighbourOffsets;
+		private final int[] neighbours;
+		private final int[] clusterOffsets;
+		private final int[] clusterMembers;
+		
+		private final double[] x;
+		private final double[] y;
+		private final QuadTree quadTree = new QuadTree();
+		private final double[] force = new double[2];
+		
+		public BarnesHutForceCalculator() {
+			List<T> fieldList = new ArrayList<>(fields);
+			int numFields = fieldList.size();
+			indices = new HashMap<>();
+			for (int i = 0; i < numFields; i++) {
+				indices.put(fieldList.get(i), i);
+			}
+			
+			neighbourOffsets = new int[numFields + 1];
+			clusterOffsets = new int[numFields + 1];
+			for (int i = 0; i < numFields; i++) {
+				neighbourOffsets[i + 1] = neighbourOffsets[i] + connectedFields.get(fieldList.get(i)).size();
+				clusterOffsets[i + 1] = clusterOffsets[i] + connectedClusters.get(fieldList.get(i)).size() - 1;
+			}
+			neighbours = new int[neighbourOffsets[numFields]];
+			clusterMembers = new int[clusterOffsets[numFields]];
+			for (int i = 0; i < numFields; i++) {
+				T field = fieldList.get(i);
+				int neighbourIndex = neighbourOffsets[i];
+				for (T connected : connectedFields.get(field)) {
+					neighbours[neighbourIndex++] = indices.get(connected);
+				}
+				int clusterIndex = clusterOffsets[i];
+				for (T clusterField : connectedClusters.get(field)) {
+					if (clusterField != field) {
+						clusterMembers[clusterIndex++] = indices.get(clusterField);
+					}
+				}
+			}
+			
+			x = new double[numFields];
+			y = new double[numFields];
+		}
+		
+		@Override
+		public void prepareIteration() {
+			for (Map.Entry<T, Integer> entry : indices.entrySet()) {
+				x[entry.getValue()] = entry.getKey().pos().x;
+				y[entry.getValue()] = entry.getKey().pos().y;
+			}
+			quadTree.build(x, y);
+		}
+		
+		@Override
+		public Vector2D resultingDisplacementVector(T field) {
+			int index = indices.get(field);
+			
+			// repulsive force between all nodes (approximated)
+			quadTree.calculateRepulsiveForce(index, repulsiveForce, maxForceFactor, barnesHutTheta, force);
+			double forceX = force[0];
+			double forceY = force[1];
+			
+			for (int i = neighbourOffsets[index]; i < neighbourOffsets[index + 1]; i++) {
+				int connected = neighbours[i];
+				double dx = x[connected] - x[index];
+				double dy = y[connected] - y[index];
+				double distance = Math.sqrt(dx * dx + dy * dy);
+				if (distance > 0) {
+					// remove the repulsive force between connected nodes and add the attractive spring force
+					double forceFactor = Math.min(repulsiveForce / distance, maxForceFactor);
+					forceFactor += truncateForceFactor(springForce * Math.log10(distance / idealSpringLength));
+					forceX += dx / distance * forceFactor;
+					forceY += dy / distance * forceFactor;
+				}
+			}
+			
+			// attractive force between nodes in a cluster
+			for (int i = clusterOffsets[index]; i < clusterOffsets[index + 1]; i++) {
+				int clusterField = clusterMembers[i];
+				double dx = x[clusterField] - x[index];
+				double dy = y[clusterField] - y[index];
+				double distance = Math.sqrt(dx * dx + dy * dy);
+				if (distance > 0) {
+					double forceFactor = truncateForceFactor(clusterForce * Math.log10(distance / idealClusterDistance));
+					forceX += dx / distance * forceFactor;
+					forceY += dy / distance * forceFactor;
+				}
+			}
+			
+			return new Vector2D(forceX, forceY);
+		}
+	}
+	
 	private double truncateForceFactor(double forceFactor) {
 		if (Math.abs(forceFactor) > maxForceFactor || forceFactor == Float.NaN) {
 			if (forceFactor > maxForceFactor) {
@@ -0,0 +1,234 @@
+package com.codingame.game.view.map;
+
+import java.util.Arrays;
+
+/**
+ * A quadtree over points in primitive arrays, that stores the number of points and their center of mass in every node, to
+ * approximate the forces of far away points (Barnes-Hut).
+ * 
+ * The tree is rebuilt for every iteration of a placement (see {@link #build(double[], double[])}), reusing it's arrays.
+ */
+class QuadTree {
+	
+	/**
+	 * The maximum depth of the tree. Points that still share a leaf at this depth (e.g. points at the same position) are stored in a
+	 * list in the leaf.
+	 */
+	private static final int MAX_DEPTH = 24;
+	
+	private int numPoints;
+	private double[] x;
+	private double[] y;
+	private int[] nextPointInLeaf; // a linked list of the points in a leaf
+	
+	private int numNodes;
+	private double[] nodeMinX;
+	private double[] nodeMinY;
+	private double[] nodeSize; // the nodes are squares
+	private double[] nodeSumX; // the sum of the x coordinates of all points in the node (to calculate the center of mass)
+	private double[] nodeSumY;
+	private int[] nodeCount;
+	private int[] nodeFirstChild; // the index of the first of the four children, or -1 for a leaf
+	private int[] nodeFirstPoint; // the first point of a leaf, or -1 if the leaf is empty
+	
+	private int[] stack = new int[64];
+	
+	public QuadTree() {
+		ensureNodeCapacity(64);
+		nextPointInLeaf = new int[0];
+	}
+	
+	/**
+	 * Build the tree for the given points (the arrays are not copied, so they must not be changed before the tree is rebuilt).
+	 */
+	public void build(double[] x, double[] y) {
+		this.x = x;
+		this.y = y;
+		numPoints = x.length;
+		if (nextPointInLeaf.length < numPoints) {
+			nextPointInLeaf = new int[numPoints];
+		}
+		
+		double minX = Double.POSITIVE_INFINITY;
+		double minY = Double.POSITIVE_INFINITY;
+		double maxX = Double.NEGATIVE_INFINITY;
+		double maxY = Double.NEGATIVE_INFINITY;
+		for (int i = 0; i < numPoints; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+			maxX = Math.max(maxX, x[i]);
+			maxY = Math.max(maxY, y[i]);
+		}
+		if (numPoints == 0) {
+			minX = minY = maxX = maxY = 0;
+		}
+		
+		numNodes = 0;
+		createNode(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1e-6) * 1.0001);
+		for (int i = 0; i < numPoints; i++) {
+			insert(i);
+		}
+	}
+	
+	private void insert(int point) {
+		int node = 0;
+		int depth = 0;
+		while (true) {
+			nodeCount[node]++;
+			nodeSumX[node] += x[point];
+			nodeSumY[node] += y[point];
+			
+			if (nodeFirstChild[node] != -1) {
+				node = getChild(node, x[point], y[point]);
+				depth++;
+			}
+			else if (nodeFirstPoint[node] == -1) {
+				nodeFirstPoint[node] = point;
+				nextPointInLeaf[point] = -1;
+				return;
+			}
+			else if (depth >= MAX_DEPTH) {
+				nextPointInLeaf[point] = nodeFirstPoint[node];
+				nodeFirstPoint[node] = point;
+				return;
+			}
+			else {
+				// split the leaf and move the point of the leaf (there is only one above the maximum depth) into a child
+				int existing = nodeFirstPoint[node];
+				nodeFirstPoint[node] = -1;
+				subdivide(node);
+				
+				int child = getChild(node, x[existing], y[existing]);
+				nodeCount[child] = 1;
+				nodeSumX[child] = x[existing];
+				nodeSumY[child] = y[existing];
+				nodeFirstPoint[child] = existing;
+				
+				node = getChild(node, x[point], y[point]);
+				depth++;
+			}
+		}
+	}
+	
+	private void subdivide(int node) {
+		double halfSize = nodeSize[node] / 2;
+		double minX = nodeMinX[node];
+		double minY = nodeMinY[node];
+		
+		// the children may be moved by a resize of the arrays, so the values are read before
+		int firstChild = createNode(minX, minY, halfSize);
+		createNode(minX + halfSize, minY, halfSize);
+		createNode(minX, minY + halfSize, halfSize);
+		createNode(minX + halfSize, minY + halfSize, halfSize);
+		nodeFirstChild[node] = firstChild;
+	}
+	
+	private int getChild(int node, double posX, double posY) {
+		double halfSize = nodeSize[node] / 2;
+		int quadrant = (posX >= nodeMinX[node] + halfSize ? 1 : 0) + (posY >= nodeMinY[node] + halfSize ? 2 : 0);
+		return nodeFirstChild[node] + quadrant;
+	}
+	
+	private int createNode(double minX, double minY, double size) {
+		ensureNodeCapacity(numNodes + 1);
+		int node = numNodes++;
+		nodeMinX[node] = minX;
+		nodeMinY[node] = minY;
+		nodeSize[node] = size;
+		nodeSumX[node] = 0;
+		nodeSumY[node] = 0;
+		nodeCount[node] = 0;
+		nodeFirstChild[node] = -1;
+		nodeFirstPoint[node] = -1;
+		return node;
+	}
+	
+	private void ensureNodeCapacity(int capacity) {
+		if (nodeMinX != null && nodeMinX.length >= capacity) {
+			return;
+		}
+		
+		int newCapacity = Math.max(capacity, nodeMinX == null ? 0 : nodeMinX.length * 2);
+		nodeMinX = nodeMinX == null ? new double[newCapacity] : Arrays.copyOf(nodeMinX, newCapacity);
+		nodeMinY = nodeMinY == null ? new double[newCapacity] : Arrays.copyOf(nodeMinY, newCapacity);
+		nodeSize = nodeSize == null ? new double[newCapacity] : Arrays.copyOf(nodeSize, newCapacity);
+		nodeSumX = nodeSumX == null ? new double[newCapacity] : Arrays.copyOf(nodeSumX, newCapacity);
+		nodeSumY = nodeSumY == null ? new double[newCapacity] : Arrays.copyOf(nodeSumY, newCapacity);
+		nodeCount = nodeCount == null ? new int[newCapacity] : Arrays.copyOf(nodeCount, newCapacity);
+		nodeFirstChild = nodeFirstChild == null ? new int[newCapacity] : Arrays.copyOf(nodeFirstChild, newCapacity);
+		nodeFirstPoint = nodeFirstPoint == null ? new int[newCapacity] : Arrays.copyOf(nodeFirstPoint, newCapacity);
+	}
+	
+	/**
+	 * Calculate the sum of the repulsive forces of all other points on a point, where the force between two points has the length
+	 * min(forceConstant / distance, maxForce) and points away from the other point.
+	 * 
+	 * A node is approximated by it's center of mass, if it doesn't contain the point and size / distance < theta (so theta = 0
+	 * calculates the exact forces).
+	 * 
+	 * @param force
+	 *        The array, the x and y component of the force is written to
+	 */
+	public void calculateRepulsiveForce(int point, double forceConstant, double maxForce, double theta, double[] force) {
+		double forceX = 0;
+		double forceY = 0;
+		double posX = x[point];
+		double posY = y[point];
+		
+		int stackSize = 0;
+		stack[stackSize++] = 0;
+		while (stackSize > 0) {
+			int node = stack[--stackSize];
+			if (nodeCount[node] == 0) {
+				continue;
+			}
+			
+			if (nodeFirstChild[node] == -1) {
+				for (int other = nodeFirstPoint[node]; other != -1; other = nextPointInLeaf[other]) {
+					if (other != point) {
+						double dx = posX - x[other];
+						double dy = posY - y[other];
+						double distance = Math.sqrt(dx * dx + dy * dy);
+						if (distance > 0) {
+							double factor = Math.min(forceConstant / distance, maxForce);
+							forceX += dx / distance * factor;
+							forceY += dy / distance * factor;
+						}
+					}
+				}
+				continue;
+			}
+			
+			double centerX = nodeSumX[node] / nodeCount[node];
+			double centerY = nodeSumY[node] / nodeCount[node];
+			double dx = posX - centerX;
+			double dy = posY - centerY;
+			double distance = Math.sqrt(dx * dx + dy * dy);
+			if (distance > 0 && !contains(node, posX, posY) && nodeSize[node] < theta * distance) {
+				// approximate all points of the node by their center of mass
+				double factor = Math.min(forceConstant / distance, maxForce) * nodeCount[node];
+				forceX += dx / distance * factor;
+				forceY += dy / distance * factor;
+			}
+			else {
+				if (stack.length < stackSize + 4) {
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				}
+				for (int child = 0; child < 4; child++) {
+					stack[stackSize++] = nodeFirstChild[node] + child;
+				}
+			}
+		}
+		
+		force[0] = forceX;
+		force[1] = forceY;
+	}
+	
+	private boolean contains(int node, double posX, double posY) {
+		return posX >= nodeMinX[node] && posX < nodeMinX[node] + nodeSize[node] && posY >= nodeMinY[node] && posY < nodeMinY[node] + nodeSize[node];
+	}
+	
+	public int getNumNodes() {
+		return numNodes;
+	}
+}
@@ -0,0 +1,106 @@
+package com.codingame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.Action.Type;
+import com.codingame.game.core.Owner;
+
+public class ActionParserTest {
+	
+	private ActionParser parser;
+	
+	@BeforeEach
+	public void setup() {
+		parser = new ActionParser();
+	}
+	
+	@Test
+	public void test_parse_all_action_types() throws Exception {
+		List<Action> actions = parser.parse("PICK 3; DEPLOY 4 5 ;MOVE 1 2 -3;  RANDOM;WAIT;;");
+		
+		assertEquals(5, actions.size());
+		assertAction(actions.get(0), Type.PICK, Action.NO_SELECTION, 3, 0);
+		assertAction(actions.get(1), Type.DEPLOY, Action.NO_SELECTION, 4, 5);
+		assertAction(actions.get(2), Type.MOVE, 1, 2, -3);
+		assertAction(actions.get(3), Type.RANDOM, Action.NO_SELECTION, Action.NO_SELECTION, 0);
+		assertAction(actions.get(4), Type.WAIT, Action.NO_SELECTION, Action.NO_SELECTION, 0);
+	}
+	
+	@Test
+	public void test_parse_additional_parts_are_ignored() throws Exception {
+		List<Action> actions = parser.parse("PICK 3 4;RANDOM 1");
+		
+		assertAction(actions.get(0), Type.PICK, Action.NO_SELECTION, 3, 0);
+		assertAction(actions.get(1), Type.RANDOM, Action.NO_SELECTION, Action.NO_SELECTION, 0);
+	}
+	
+	@Test
+	public void test_parse_reuses_actions() throws Exception {
+		List<Action> actions = parser.parse("MOVE 1 2 3;PICK 4");
+		Action move = actions.get(0);
+		move.setOwner(Owner.PLAYER_1);
+		
+		List<Action> nextActions = parser.parse("DEPLOY 5 6");
+		
+		assertSame(actions, nextActions);
+		assertEquals(1, nextActions.size());
+		assertSame(move, nextActions.get(0));
+		assertAction(nextActions.get(0), Type.DEPLOY, Action.NO_SELECTION, 5, 6);
+		assertNull(nextActions.get(0).getOwner());
+	}
+	
+	@Test
+	public void test_parse_error_messages() {
+		assertInvalidAction("No action was given", "");
+		assertInvalidAction("No action was given", " ; ;");
+		assertInvalidAction("Missing field id in output: PICK", " PICK ");
+		assertInvalidAction("Missing field id in output: FOO", "FOO");
+		assertInvalidAction("Invalid action type: FOO", "FOO 1");
+		assertInvalidAction("Invalid action type: pick", "pick 1");
+		assertInvalidAction("Missing number of troops for action: DEPLOY", "DEPLOY 1");
+		assertInvalidAction("Missing target id for action: MOVE", "MOVE 1");
+		assertInvalidAction("Missing number of troops for action: MOVE", "MOVE 1 2");
+		assertInvalidAction("Missing number of troops for action: MOVE", "PICK 1;MOVE 1 2;FOO");
+	}
+	
+	@Test
+	public void test_parse_number_format_messages() {
+		assertNumberFormat("PICK a", "a");
+		assertNumberFormat("PICK  1", ""); // two spaces lead to an empty part
+		assertNumberFormat("DEPLOY 1 -", "-");
+		assertNumberFormat("MOVE 1 2 12345678901", "12345678901");
+		assertNumberFormat("MOVE 1 x 3y", "x");
+	}
+	
+	@Test
+	public void test_parse_large_numbers() throws Exception {
+		List<Action> actions = parser.parse("DEPLOY 2147483647 -2147483648");
+		
+		assertAction(actions.get(0), Type.DEPLOY, Action.NO_SELECTION, Integer.MAX_VALUE, Integer.MIN_VALUE);
+	}
+	
+	private void assertAction(Action action, Type type, int sourceId, int targetId, int numTroops) {
+		assertEquals(type, action.getType());
+		assertEquals(sourceId, action.getSourceId());
+		assertEquals(targetId, action.getTargetId());
+		assertEquals(numTroops, action.getNumTroops());
+	}
+	
+	private void assertInvalidAction(String expectedMessage, String output) {
+		InvalidActionException exception = assertThrows(InvalidActionException.class, () -> parser.parse(output));
+		assertEquals(expectedMessage, exception.getMessage());
+	}
+	
+	private void assertNumberFormat(String output, String invalidNumber) {
+		NumberFormatException exception = assertThrows(NumberFormatException.class, () -> parser.parse(output));
+		assertEquals(assertThrows(NumberFormatException.class, () -> Integer.parseInt(invalidNumber)).getMessage(), exception.getMessage());
+	}
+}
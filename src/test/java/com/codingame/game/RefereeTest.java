@@ -4,8 +4,12 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
@@ -15,6 +19,7 @@ import org.junit.jupiter.api.Test;
 import com.codingame.game.Action.Type;
 import com.codingame.game.build.RandomUtil;
 import com.codingame.game.build.StaticMapGenerator;
+import com.codingame.game.core.CoreTestUtils;
 import com.codingame.game.core.Field;
 import com.codingame.game.core.GameMap;
 import com.codingame.game.core.Owner;
@@ -35,7 +40,7 @@ public class RefereeTest {
 		
 		referee = new Referee();
 		GameMap notMockedMap = new StaticMapGenerator().createMapFiveRegions();
-		map = new GameMapMock(notMockedMap.fields, notMockedMap.connections, notMockedMap.regions);
+		map = createMapMock(notMockedMap);
 		
 		// use the same map for all tests
 		TestUtils.setFieldPerReflection(referee, "map", map);
@@ -462,9 +467,24 @@ public class RefereeTest {
 		TestUtils.setFieldPerReflection(referee, "league", league);
 	}
 	
-	private void setFieldProperties(int id, Owner owner, int troops) throws NoSuchFieldException, IllegalAccessException {
-		TestUtils.setFieldPerReflection(map.getFieldById(id).get(), "owner", owner);
-		TestUtils.setFieldPerReflection(map.getFieldById(id).get(), "troops", troops);
+	private void setFieldProperties(int id, Owner owner, int troops) {
+		// use the setters instead of the attributes, so the counters of the map are updated
+		CoreTestUtils.setFieldProperties(map.getFieldById(id).get(), owner, troops);
+	}
+	
+	/**
+	 * Create a mock with copies of the fields of the given map, because a field can only belong to one map.
+	 */
+	private GameMapMock createMapMock(GameMap notMockedMap) {
+		Map<Field, Field> copies = notMockedMap.fields.stream().collect(Collectors.toMap(Function.identity(), field -> new Field(field.id)));
+		Set<Pair<Field, Field>> connections = notMockedMap.connections.stream() //
+				.map(connection -> Pair.of(copies.get(connection.getKey()), copies.get(connection.getValue()))) //
+				.collect(Collectors.toSet());
+		Set<Region> regions = notMockedMap.regions.stream() //
+				.map(region -> new Region(region.id, region.fields.stream().map(copies::get).collect(Collectors.toSet()), region.bonusTroops)) //
+				.collect(Collectors.toSet());
+		
+		return new GameMapMock(new HashSet<>(copies.values()), connections, regions);
 	}
 	
 	private class GameMapMock extends GameMap {
@@ -0,0 +1,185 @@
+package com.codingame.game;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.Action.Type;
+import com.codingame.game.build.StaticMapGenerator;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.core.GameMapSnapshot;
+import com.codingame.game.core.Owner;
+import com.codingame.game.core.TurnType;
+
+public class TurnInputEncoderTest {
+	
+	private GameMap map;
+	private TurnInputEncoder encoder;
+	
+	@BeforeEach
+	public void setup() {
+		map = new StaticMapGenerator().createMapFiveRegions();
+		encoder = new TurnInputEncoder(map.fields.size());
+	}
+	
+	@Test
+	public void test_encode__same_lines_as_line_by_line_input() {
+		map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+		map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+		map.executeIndependent(new Action(Type.PICK, 2).setOwner(Owner.PLAYER_2));
+		
+		for (TurnType turnType : TurnType.values()) {
+			encoder.prepareTurn(map, turnType, true);
+			
+			for (Owner player : new Owner[] {Owner.PLAYER_1, Owner.PLAYER_2}) {
+				encoder.encode(player);
+				
+				List<String> expectedLines = createTurnInput(turnType, player);
+				List<String> lines = new ArrayList<>();
+				for (int i = 0; i < encoder.getNumLines(); i++) {
+					lines.add(encoder.getLine(i));
+				}
+				
+				assertEquals(expectedLines, lines);
+				assertEquals(String.join("\n", expectedLines) + "\n", encoder.getFrame().toString());
+			}
+		}
+	}
+	
+	@Test
+	public void test_encode__buffer_is_reused() {
+		encoder = new TurnInputEncoder(0); // the buffer has to grow
+		
+		encoder.prepareTurn(map, TurnType.DEPLOY_TROOPS, true);
+		encoder.encode(Owner.PLAYER_1);
+		encoder.encode(Owner.PLAYER_1);
+		
+		assertEquals(map.fields.size() + 4, encoder.getNumLines());
+		assertEquals(TurnType.DEPLOY_TROOPS.name(), encoder.getLine(0));
+	}
+	
+	@Test
+	public void test_encode__turn_not_prepared() {
+		assertThrows(IllegalStateException.class, () -> encoder.encode(Owner.PLAYER_1));
+	}
+	
+	@Test
+	public void test_encode_delta__only_changed_fields() {
+		encoder = new TurnInputEncoder(map.fields.size(), true);
+		
+		// the first frame contains all fields
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		assertEquals(Integer.toString(map.fields.size()), encoder.getLine(4));
+		assertEquals(map.fields.size() + 5, encoder.getNumLines());
+		
+		encoder.encode(Owner.PLAYER_2);
+		assertEquals(map.fields.size() + 5, encoder.getNumLines());
+		
+		map.executeIndependent(new Action(Type.PICK, 3).setOwner(Owner.PLAYER_1));
+		map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+		
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		assertEquals(Arrays.asList("2", "1 1 2", "3 1 1"), getLines(4));
+		
+		encoder.encode(Owner.PLAYER_2);
+		assertEquals(Arrays.asList("2", "1 1 1", "3 1 2"), getLines(4));
+		
+		// no changes
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		assertEquals(Arrays.asList("0"), getLines(4));
+	}
+	
+	@Test
+	public void test_encode_delta__changes_are_kept_for_inactive_player() {
+		encoder = new TurnInputEncoder(map.fields.size(), true);
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		encoder.encode(Owner.PLAYER_2);
+		
+		map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1); // player 2 doesn't get an input in this turn
+		assertEquals(Arrays.asList("1", "0 1 1"), getLines(4));
+		
+		map.executeIndependent(new Action(Type.PICK, 2).setOwner(Owner.PLAYER_1));
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_2);
+		assertEquals(Arrays.asList("2", "0 1 2", "2 1 2"), getLines(4));
+	}
+	
+	@Test
+	public void test_encode_delta__restored_snapshot() {
+		encoder = new TurnInputEncoder(map.fields.size(), true);
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		
+		GameMapSnapshot snapshot = map.createSnapshot();
+		map.executeIndependent(new Action(Type.PICK, 4).setOwner(Owner.PLAYER_1));
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		
+		map.restoreSnapshot(snapshot);
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		encoder.encode(Owner.PLAYER_1);
+		assertEquals(Arrays.asList("1", "4 " + map.getFieldById(4).get().getTroops() + " 0"), getLines(4));
+	}
+	
+	@Test
+	public void test_encode_delta__changed_fields_are_not_reset() {
+		encoder = new TurnInputEncoder(map.fields.size(), true);
+		prepareTurn(TurnType.CHOOSE_STARTING_FIELDS);
+		
+		map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+		encoder.prepareTurn(map, TurnType.CHOOSE_STARTING_FIELDS, true);
+		encoder.encode(Owner.PLAYER_1);
+		
+		// the changes are still available for other readers
+		assertEquals(1, map.getNumChangedFields());
+		assertEquals(0, map.getChangedFieldId(0));
+	}
+	
+	/**
+	 * Prepare the turn like the Referee (that resets the changed fields of the map after the turn was prepared).
+	 */
+	private void prepareTurn(TurnType turnType) {
+		encoder.prepareTurn(map, turnType, true);
+		map.resetChangedFields();
+	}
+	
+	private List<String> getLines(int firstLine) {
+		List<String> lines = new ArrayList<>();
+		for (int i = firstLine; i < encoder.getNumLines(); i++) {
+			lines.add(encoder.getLine(i));
+		}
+		return lines;
+	}
+	
+	/**
+	 * Create the input of a turn line by line (like it was done by the referee before the encoder was added).
+	 */
+	private List<String> createTurnInput(TurnType turnType, Owner player) {
+		Owner opponent = player.getOpponent();
+		List<String> lines = new ArrayList<>();
+		
+		lines.add(turnType.name());
+		lines.add(map.getNumFieldsControlledByPlayer(player) + " " + map.getNumFieldsControlledByPlayer(opponent));
+		lines.add(map.calculateDeployableTroops(player, true) + " " + map.calculateDeployableTroops(opponent, true));
+		lines.add(map.getStartingFieldChoice().getStartingFieldsLeft(player) + " " + map.getStartingFieldChoice().getStartingFieldsLeft(opponent));
+		for (Field field : map.fields) {
+			int owner = field.getOwner() == player ? 1 : field.getOwner() == opponent ? 2 : 0;
+			lines.add(field.id + " " + field.getTroops() + " " + owner);
+		}
+		
+		return lines;
+	}
+}
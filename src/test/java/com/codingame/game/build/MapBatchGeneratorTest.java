@@ -0,0 +1,119 @@
+package com.codingame.game.build;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.core.GameMap;
+import com.codingame.game.util.Vector2D;
+
+public class MapBatchGeneratorTest {
+	
+	@Test
+	public void test_generate_mapsAreWrittenToLibrary() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try {
+			MapBatchGenerator generator = new MapBatchGenerator();
+			generator.setParallelism(4);
+			
+			MapBatchGenerator.Result result;
+			try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+				result = generator.generate(100, 12, writer);
+			}
+			
+			assertEquals(12, result.statistics.size());
+			for (int i = 0; i < 12; i++) {
+				assertEquals(100 + i, result.statistics.get(i).seed);
+			}
+			
+			try (MapLibrary library = MapLibrary.open(file)) {
+				assertArrayEquals(new long[] {100, 101, 102, 103, 104, 105, 106, 107, 108, 109, 110, 111}, library.getSeeds());
+				
+				// the maps are the same as if they were generated one after another
+				for (MapStatistics statistics : result.statistics) {
+					GameMap map = library.loadMap(statistics.seed, new RandomUtil(statistics.seed)).get().map;
+					GameMap generatedMap = MapGenerator.generateMap(new RandomUtil(statistics.seed)).getKey();
+					assertEquals(generatedMap.fields.size(), map.fields.size());
+					assertEquals(generatedMap.connections.size(), map.connections.size());
+					assertEquals(statistics.toCsvLine(), MapStatistics.of(statistics.seed, map).toCsvLine());
+				}
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_generate_placed_mapsWithNonFinitePositionsAreSkipped() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try {
+			// the view placement creates NaN positions for some of the maps with 100 fields (e.g. for the seed 42)
+			MapBatchGenerator generator = new MapBatchGenerator(100, 100);
+			generator.setPlaceFields(true);
+			
+			MapBatchGenerator.Result result;
+			try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+				result = generator.generate(40, 4, writer);
+			}
+			
+			assertEquals(4, result.statistics.size());
+			assertTrue(result.skippedSeeds.contains(42L));
+			
+			try (MapLibrary library = MapLibrary.open(file)) {
+				assertEquals(4 - result.skippedSeeds.size(), library.size());
+				for (long seed : library.getSeeds()) {
+					assertFalse(result.skippedSeeds.contains(seed));
+					for (Vector2D position : library.loadMap(seed, new RandomUtil(seed)).get().placedPositions.values()) {
+						assertTrue(Double.isFinite(position.x) && Double.isFinite(position.y));
+					}
+				}
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_generate_independentOfParallelism() {
+		MapBatchGenerator generator = new MapBatchGenerator();
+		generator.setParallelism(1);
+		MapBatchGenerator.Result sequential = generator.generate(7, 8, null);
+		generator.setParallelism(3);
+		MapBatchGenerator.Result parallel = generator.generate(7, 8, null);
+		
+		for (int i = 0; i < 8; i++) {
+			assertEquals(sequential.statistics.get(i).toCsvLine(), parallel.statistics.get(i).toCsvLine());
+		}
+	}
+	
+	@Test
+	public void test_statistics() {
+		GameMap map = MapGenerator.generateMap(new RandomUtil(42)).getKey();
+		MapStatistics statistics = MapStatistics.of(42, map);
+		
+		assertEquals(map.fields.size(), statistics.numFields);
+		assertEquals(map.fields.size(), Arrays.stream(statistics.degreeDistribution).sum());
+		int degreeSum = 0;
+		for (int degree = 0; degree < statistics.degreeDistribution.length; degree++) {
+			degreeSum += degree * statistics.degreeDistribution[degree];
+		}
+		assertEquals(2 * map.connections.size(), degreeSum);
+		
+		assertEquals(map.regions.size(), statistics.regionSizes.length);
+		assertEquals(map.fields.size(), Arrays.stream(statistics.regionSizes).sum());
+		
+		assertTrue(statistics.exactDiameter);
+		assertTrue(statistics.diameter > 0 && statistics.diameter < map.fields.size());
+		assertTrue(statistics.numCrossSideConnections >= 2);
+	}
+}
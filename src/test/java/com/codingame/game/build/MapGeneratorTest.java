@@ -3,6 +3,7 @@ package com.codingame.game.build;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.ArrayList;
@@ -21,9 +22,11 @@ import org.junit.jupiter.api.RepeatedTest;
 import org.junit.jupiter.api.Test;
 
 import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
 import com.codingame.game.core.Region;
 import com.codingame.game.util.Pair;
 import com.codingame.game.util.TestUtils;
+import com.codingame.game.util.UnionFind;
 import com.codingame.game.util.Vector2D;
 
 public class MapGeneratorTest {
@@ -351,6 +354,66 @@ public class MapGeneratorTest {
 		RandomUtil.init(new Random().nextLong());
 	}
 	
+	@Test
+	public void test_getDividedFieldGroups_longChain() throws Throwable {
+		setup();
+		List<Field> fields = createFields(100000);
+		for (int i = 0; i < fields.size() - 1; i++) {
+			TestUtils.invokePrivateMethod(generator, "connectFields", fields.get(i), fields.get(i + 1));
+		}
+		
+		TestUtils.setFieldPerReflection(generator, "fields", fields);
+		
+		// a recursive depth first search would overflow the stack here
+		assertTrue(allFieldsConnectedTransitively());
+	}
+	
+	@Test
+	public void test_removeDispensableConnections_bridgeIsKept() throws Throwable {
+		setup();
+		List<Field> fields = createFields(7);
+		
+		// field 0 has too many connections: to the triangle 1-2-3 and to the triangle 4-5-6 (only connected over field 4)
+		int[][] connections = {{0, 1}, {0, 2}, {0, 3}, {0, 4}, {1, 2}, {2, 3}, {3, 1}, {4, 5}, {5, 6}, {6, 4}};
+		for (int[] connection : connections) {
+			TestUtils.invokePrivateMethod(generator, "connectFields", fields.get(connection[0]), fields.get(connection[1]));
+		}
+		
+		TestUtils.setFieldPerReflection(generator, "fields", fields);
+		
+		TestUtils.invokePrivateMethod(generator, "removeDispensableConnections");
+		
+		assertTrue(allFieldsConnectedTransitively());
+		assertTrue(isFieldsConnected(fields, getConnections(), 0, 4));
+		assertEquals(3, getConnections().get(fields.get(0)).size());
+		assertEquals(9, getConnections().values().stream().mapToInt(Set::size).sum() / 2);
+	}
+	
+	@Test
+	public void test_generateMap_largeMap() {
+		GameMap map = MapGenerator.generateMap(new RandomUtil(42), 2000, 2000).getKey();
+		
+		assertEquals(2000, map.fields.size());
+		
+		UnionFind groups = new UnionFind(map.fields.size());
+		int[] numConnections = new int[map.fields.size()];
+		for (Pair<Field, Field> connection : map.connections) {
+			groups.union(connection.getKey().id, connection.getValue().id);
+			numConnections[connection.getKey().id]++;
+			numConnections[connection.getValue().id]++;
+		}
+		
+		assertEquals(1, groups.getNumSets());
+		assertTrue(Arrays.stream(numConnections).allMatch(connections -> connections >= 2));
+		assertEquals(map.fields.size(), map.regions.stream().mapToInt(region -> region.fields.size()).sum());
+	}
+	
+	@Test
+	public void test_generateMap_numberOfFieldsOutOfBounds() {
+		assertThrows(IllegalArgumentException.class, () -> MapGenerator.generateMap(new RandomUtil(42), 2, 30));
+		assertThrows(IllegalArgumentException.class, () -> MapGenerator.generateMap(new RandomUtil(42), 30, 16));
+	}
+	
 	private List<Field> createFields(int numFields) {
 		return IntStream.range(0, numFields).mapToObj(Field::new).collect(Collectors.toList());
 	}
@@ -0,0 +1,175 @@
+package com.codingame.game.build;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.util.Pair;
+import com.codingame.game.util.Vector2D;
+
+public class MapLibraryTest {
+	
+	@Test
+	public void test_writeAndLoad() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try {
+			Map<Long, Pair<GameMap, Map<Field, Vector2D>>> generatedMaps = new HashMap<>();
+			try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+				for (long seed : new long[] {17, 3, 42}) {
+					Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(seed), 10, 40);
+					generatedMaps.put(seed, generatedMap);
+					writer.add(seed, generatedMap.getKey(), generatedMap.getValue(), seed == 42 ? generatedMap.getValue() : null);
+				}
+			}
+			
+			try (MapLibrary library = MapLibrary.open(file)) {
+				assertEquals(3, library.size());
+				assertArrayEquals(new long[] {3, 17, 42}, library.getSeeds());
+				assertTrue(library.contains(17));
+				assertFalse(library.contains(18));
+				assertFalse(library.loadMap(18, new RandomUtil(18)).isPresent());
+				
+				for (long seed : generatedMaps.keySet()) {
+					GameMap expected = generatedMaps.get(seed).getKey();
+					Map<Field, Vector2D> expectedPositions = generatedMaps.get(seed).getValue();
+					MapLibrary.Entry entry = library.loadMap(seed, new RandomUtil(seed)).get();
+					
+					assertEquals(seed, entry.seed);
+					assertEquals(getFieldIds(expected.fields), getFieldIds(entry.map.fields));
+					assertEquals(getConnectionIds(expected), getConnectionIds(entry.map));
+					assertEquals(getRegions(expected), getRegions(entry.map));
+					
+					for (Field field : entry.map.fields) {
+						Field expectedField = expected.getFieldById(field.id).get();
+						assertTrue(expectedPositions.get(expectedField).distance(entry.positions.get(field)) < 1e-3);
+					}
+					assertEquals(seed == 42, entry.getPlacedPositions().isPresent());
+				}
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_add_duplicateSeed() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+			Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(1), 10, 20);
+			writer.add(1, generatedMap.getKey(), generatedMap.getValue(), null);
+			
+			assertThrows(IllegalArgumentException.class, () -> writer.add(1, generatedMap.getKey(), generatedMap.getValue(), null));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_openShared_sameLibraryForNormalizedPath() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try {
+			try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+				Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(5), 10, 20);
+				writer.add(5, generatedMap.getKey(), generatedMap.getValue(), null);
+			}
+			
+			MapLibrary library = MapLibrary.openShared(file);
+			
+			assertSame(library, MapLibrary.openShared(file.getParent().resolve(".").resolve(file.getFileName())));
+			assertTrue(library.loadMap(5, new RandomUtil(5)).isPresent());
+			assertTrue(library.loadMap(5, new RandomUtil(6)).isPresent());
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_open_noMapLibrary() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try {
+			Files.write(file, new byte[64]);
+			
+			assertThrows(IOException.class, () -> MapLibrary.open(file));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_open_corruptIndex() throws IOException {
+		Path file = writeLibraryWithOneMap();
+		try {
+			byte[] bytes = Files.readAllBytes(file);
+			ByteBuffer.wrap(bytes).putLong(bytes.length - MapLibrary.TRAILER_BYTES, bytes.length); // the index offset points behind the file
+			Files.write(file, bytes);
+			
+			assertThrows(IOException.class, () -> MapLibrary.open(file));
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	@Test
+	public void test_loadMap_corruptMap() throws IOException {
+		Path file = writeLibraryWithOneMap();
+		try {
+			byte[] bytes = Files.readAllBytes(file);
+			ByteBuffer.wrap(bytes).putInt(8 + 4, Integer.MAX_VALUE); // the number of field ids of the map
+			Files.write(file, bytes);
+			
+			try (MapLibrary library = MapLibrary.open(file)) {
+				assertThrows(IOException.class, () -> library.loadMap(1, new RandomUtil(1)));
+			}
+		}
+		finally {
+			Files.deleteIfExists(file);
+		}
+	}
+	
+	private Path writeLibraryWithOneMap() throws IOException {
+		Path file = Files.createTempFile("map_library", ".bin");
+		try (MapLibraryWriter writer = new MapLibraryWriter(file)) {
+			Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(1), 10, 20);
+			writer.add(1, generatedMap.getKey(), generatedMap.getValue(), null);
+		}
+		return file;
+	}
+	
+	private Set<Integer> getFieldIds(Set<Field> fields) {
+		return fields.stream().map(field -> field.id).collect(Collectors.toSet());
+	}
+	
+	private Set<Pair<Integer, Integer>> getConnectionIds(GameMap map) {
+		return map.connections.stream() //
+				.map(connection -> Pair.of(Math.min(connection.getKey().id, connection.getValue().id),
+						Math.max(connection.getKey().id, connection.getValue().id))) //
+				.collect(Collectors.toSet());
+	}
+	
+	private Set<String> getRegions(GameMap map) {
+		return map.regions.stream() //
+				.map(region -> region.id + ":" + region.bonusTroops + ":" + getFieldIds(region.fields).stream().sorted().collect(Collectors.toList())) //
+				.collect(Collectors.toSet());
+	}
+}
@@ -0,0 +1,17 @@
+package com.codingame.game.core;
+
+/**
+ * Access to the package-private methods of the core classes, for the tests in other packages.
+ */
+public class CoreTestUtils {
+	
+	private CoreTestUtils() {}
+	
+	/**
+	 * Set the owner and the troops of a field with the setters of the field, so the map of the field is notified about the changes.
+	 */
+	public static void setFieldProperties(Field field, Owner owner, int troops) {
+		field.setOwner(owner);
+		field.setTroops(troops);
+	}
+}
@@ -1,10 +1,16 @@
 package com.codingame.game.core;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.BeforeAll;
@@ -730,9 +736,246 @@ public class GameMapTest {
 		}
 	}
 	
-	private void setFieldProperties(int id, Owner owner, int troops) throws NoSuchFieldException, IllegalAccessException {
-		TestUtils.setFieldPerReflection(map.getFieldById(id).get(), "owner", owner);
-		TestUtils.setFieldPerReflection(map.getFieldById(id).get(), "troops", troops);
+	@Nested
+	@DisplayName("Player Statistics Tests")
+	public class PlayerStatisticsTests {
+		
+		@Test
+		public void test_statistics_updated_after_actions() throws Exception {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 10).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.MOVE, 0, 1, 8).setOwner(Owner.PLAYER_1));
+			
+			for (Owner owner : Owner.values()) {
+				assertEquals(map.fields.stream().filter(field -> field.getOwner() == owner).count(), map.getNumFieldsControlledByPlayer(owner));
+				assertEquals(map.fields.stream().filter(field -> field.getOwner() == owner).mapToInt(Field::getTroops).sum(),
+						map.getNumTroopsControlledByPlayer(owner));
+			}
+		}
+		
+		@Test
+		public void test_statistics_updated_after_setting_field_properties() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			setFieldProperties(0, Owner.PLAYER_1, 10);
+			setFieldProperties(1, Owner.PLAYER_2, 2);
+			setFieldProperties(0, Owner.PLAYER_2, 7);
+			
+			for (Owner owner : Owner.values()) {
+				assertEquals(map.fields.stream().filter(field -> field.getOwner() == owner).count(), map.getNumFieldsControlledByPlayer(owner));
+				assertEquals(map.fields.stream().filter(field -> field.getOwner() == owner).mapToInt(Field::getTroops).sum(),
+						map.getNumTroopsControlledByPlayer(owner));
+			}
+			assertEquals(2, map.getNumChangedFields());
+		}
+		
+		@Test
+		public void test_region_conquered_and_lost() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			Region region = map.regions.stream().filter(r -> r.bonusTroops == 3).findFirst().get();
+			region.fields.forEach(field -> field.setOwner(Owner.PLAYER_1));
+			
+			assertTrue(map.isRegionConqueredBy(region, Owner.PLAYER_1));
+			
+			region.fields.stream().findFirst().get().setOwner(Owner.PLAYER_2);
+			
+			assertFalse(map.isRegionConqueredBy(region, Owner.PLAYER_1));
+			assertEquals(GameMap.TROOPS_PER_ROUND_DEFAULT + (int) ((region.fields.size() - 1) * GameMap.TROOPS_BONUS_FIELD_COUNT),
+					map.calculateDeployableTroops(Owner.PLAYER_1, false));
+		}
+		
+		@Test
+		public void test_field_of_other_map_rejected() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			// the counters of the first map would not be updated anymore, if the second map took over it's fields
+			assertThrows(IllegalArgumentException.class, () -> new GameMap(map.fields, map.connections, map.regions));
+		}
+	}
+	
+	@Nested
+	@DisplayName("Snapshot Tests")
+	public class SnapshotTests {
+		
+		@Test
+		public void test_restore_snapshot() throws Exception {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+			map.setSparedDeployingTroops(3, Owner.PLAYER_1);
+			
+			GameMapSnapshot snapshot = map.createSnapshot();
+			int deployableTroops = map.calculateDeployableTroops(Owner.PLAYER_1, false);
+			int startingFieldsLeft = map.getStartingFieldChoice().getStartingFieldsLeft(Owner.PLAYER_1);
+			
+			map.executeIndependent(new Action(Type.RANDOM).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 10).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.MOVE, 0, 1, 8).setOwner(Owner.PLAYER_1));
+			map.setSparedDeployingTroops(0, Owner.PLAYER_1);
+			
+			map.restoreSnapshot(snapshot);
+			
+			assertEquals(Owner.PLAYER_1, map.getFieldById(0).get().getOwner());
+			assertEquals(1, map.getFieldById(0).get().getTroops());
+			assertEquals(Owner.PLAYER_2, map.getFieldById(1).get().getOwner());
+			assertEquals(1, map.getFieldById(1).get().getTroops());
+			assertEquals(1, map.getNumFieldsControlledByPlayer(Owner.PLAYER_1));
+			assertEquals(1, map.getNumTroopsControlledByPlayer(Owner.PLAYER_1));
+			assertEquals(deployableTroops, map.calculateDeployableTroops(Owner.PLAYER_1, false));
+			assertEquals(startingFieldsLeft, map.getStartingFieldChoice().getStartingFieldsLeft(Owner.PLAYER_1));
+			assertEquals(0f, getRoundingLoss(Owner.PLAYER_1), EPSILON);
+		}
+		
+		@Test
+		public void test_save_snapshot__reuse() {
+			GameMapSnapshot snapshot = map.createSnapshot();
+			
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			map.saveSnapshot(snapshot);
+			map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+			
+			map.restoreSnapshot(snapshot);
+			
+			assertEquals(Owner.PLAYER_1, map.getFieldById(0).get().getOwner());
+			assertEquals(Owner.NEUTRAL, map.getFieldById(1).get().getOwner());
+		}
+		
+		@Test
+		public void test_restore_snapshot__other_map() {
+			GameMapSnapshot snapshot = new StaticMapGenerator().createMapFiveRegions().createSnapshot();
+			
+			assertThrows(IllegalArgumentException.class, () -> map.restoreSnapshot(snapshot));
+		}
+		
+		@Test
+		public void test_restore_snapshot__other_map_with_same_layout() {
+			GameMapSnapshot snapshot = new StaticMapGenerator().createMapOneRegion().createSnapshot();
+			
+			assertThrows(IllegalArgumentException.class, () -> map.restoreSnapshot(snapshot));
+			assertThrows(IllegalArgumentException.class, () -> map.saveSnapshot(snapshot));
+		}
+	}
+	
+	@Nested
+	@DisplayName("Zobrist Hash Tests")
+	public class ZobristHashTests {
+		
+		@Test
+		public void test_zobrist_hash__independent_of_move_order() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.PICK, 1).setOwner(Owner.PLAYER_2));
+			GameMapSnapshot snapshot = map.createSnapshot();
+			
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 5).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.DEPLOY, 1, 2).setOwner(Owner.PLAYER_2));
+			long hash = map.getZobristHash(TurnType.MOVE_TROOPS);
+			
+			map.restoreSnapshot(snapshot);
+			map.executeIndependent(new Action(Type.DEPLOY, 1, 2).setOwner(Owner.PLAYER_2));
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 2).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 3).setOwner(Owner.PLAYER_1));
+			
+			assertEquals(hash, map.getZobristHash(TurnType.MOVE_TROOPS));
+		}
+		
+		@Test
+		public void test_zobrist_hash__restore_snapshot() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			long hash = map.getZobristHash(TurnType.DEPLOY_TROOPS);
+			GameMapSnapshot snapshot = map.createSnapshot();
+			
+			map.executeIndependent(new Action(Type.DEPLOY, 0, 4).setOwner(Owner.PLAYER_1));
+			map.executeIndependent(new Action(Type.MOVE, 0, 1, 4).setOwner(Owner.PLAYER_1));
+			map.setSparedDeployingTroops(2, Owner.PLAYER_1);
+			assertNotEquals(hash, map.getZobristHash(TurnType.DEPLOY_TROOPS));
+			
+			map.restoreSnapshot(snapshot);
+			
+			assertEquals(hash, map.getZobristHash(TurnType.DEPLOY_TROOPS));
+		}
+		
+		@Test
+		public void test_zobrist_hash__different_states() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			long initialHash = map.getZobristHash(TurnType.CHOOSE_STARTING_FIELDS);
+			
+			assertNotEquals(initialHash, map.getZobristHash(TurnType.DEPLOY_TROOPS));
+			
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_1));
+			long hashPlayer1 = map.getZobristHash(TurnType.CHOOSE_STARTING_FIELDS);
+			assertNotEquals(initialHash, hashPlayer1);
+			
+			map = new StaticMapGenerator().createMapFiveRegions();
+			map.executeIndependent(new Action(Type.PICK, 0).setOwner(Owner.PLAYER_2));
+			assertNotEquals(hashPlayer1, map.getZobristHash(TurnType.CHOOSE_STARTING_FIELDS));
+		}
+	}
+	
+	@Nested
+	@DisplayName("Connection Index Tests")
+	public class ConnectionIndexTests {
+		
+		@Test
+		public void test_is_fields_connected__same_as_connection_pairs() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			for (Field field : map.fields) {
+				for (Field other : map.fields) {
+					boolean connected = map.connections.contains(Pair.of(field, other)) || map.connections.contains(Pair.of(other, field));
+					assertEquals(connected, map.isFieldsConnected(field.id, other.id));
+				}
+			}
+		}
+		
+		@Test
+		public void test_get_connected_fields() {
+			map = new StaticMapGenerator().createMapFiveRegions();
+			
+			for (Field field : map.fields) {
+				List<Field> connected = map.getConnectedFields(field.id);
+				long expectedConnections = map.connections.stream().filter(pair -> pair.getKey().equals(field) || pair.getValue().equals(field)).count();
+				
+				assertEquals(expectedConnections, connected.size());
+				connected.forEach(other -> assertTrue(map.isFieldsConnected(field.id, other.id)));
+			}
+		}
+		
+		@Test
+		public void test_is_fields_connected__unknown_ids() {
+			assertFalse(map.isFieldsConnected(0, 42));
+			assertFalse(map.isFieldsConnected(-1, 0));
+		}
+		
+		@Test
+		public void test_connection_index__large_map_without_adjacency_matrix() {
+			int numFields = ConnectionIndex.ADJACENCY_MATRIX_MAX_FIELDS + 1;
+			Set<Pair<Field, Field>> connections = new HashSet<>();
+			for (int i = 0; i < numFields - 1; i++) {
+				connections.add(Pair.of(new Field(i), new Field(i + 1)));
+			}
+			
+			ConnectionIndex index = new ConnectionIndex(numFields, connections);
+			
+			assertFalse(index.isAdjacencyMatrixUsed());
+			assertTrue(index.isConnected(5, 6));
+			assertTrue(index.isConnected(6, 5));
+			assertFalse(index.isConnected(5, 7));
+			assertEquals(1, index.getNumNeighbours(0));
+			assertEquals(2, index.getNumNeighbours(5));
+			assertEquals(numFields - 1, index.getNumConnections());
+		}
+	}
+	
+	private void setFieldProperties(int id, Owner owner, int troops) {
+		// use the setters (not reflection), so the counters of the map are updated
+		map.getFieldById(id).get().setOwner(owner);
+		map.getFieldById(id).get().setTroops(troops);
 	}
 	
 	private float getRoundingLoss(Owner owner) throws NoSuchFieldException, SecurityException, IllegalArgumentException, IllegalAccessException {
@@ -0,0 +1,89 @@
+package com.codingame.game.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.Action;
+import com.codingame.game.Action.Type;
+import com.codingame.game.League;
+import com.codingame.game.core.Owner;
+
+public class GameSimulatorTest {
+	
+	private static final Bot WAIT_BOT = state -> Arrays.asList(new Action(Type.WAIT));
+	
+	/**
+	 * Deploys all troops on the first field and attacks the neighbours of the field with the most troops.
+	 */
+	private static final Bot AGGRESSIVE_BOT = state -> {
+		List<Action> actions = new ArrayList<>();
+		switch (state.getTurnType()) {
+			case CHOOSE_STARTING_FIELDS:
+				actions.add(new Action(Type.RANDOM));
+				break;
+			case DEPLOY_TROOPS:
+				for (int id = 0; id < state.getNumFieldIds(); id++) {
+					if (state.getOwner(id) == GameState.OWNER_PLAYER) {
+						actions.add(new Action(Type.DEPLOY, id, state.getDeployableTroops()));
+						break;
+					}
+				}
+				break;
+			case MOVE_TROOPS:
+				for (int id = 0; id < state.getNumFieldIds(); id++) {
+					if (state.getOwner(id) == GameState.OWNER_PLAYER && state.getTroops(id) > 1) {
+						int target = state.getConnections().getNeighbourId(id, 0);
+						actions.add(new Action(Type.MOVE, id, target, state.getTroops(id)));
+					}
+				}
+				break;
+		}
+		
+		if (actions.isEmpty()) {
+			actions.add(new Action(Type.WAIT));
+		}
+		return actions;
+	};
+	
+	@Test
+	public void test_simulate__wait_bots_play_draw() {
+		SimulationResult result = new GameSimulator(League.LEAGUE_3).simulate(42, WAIT_BOT, WAIT_BOT);
+		
+		assertEquals(Owner.NEUTRAL, result.getWinner());
+		assertEquals(200, result.getTurns());
+		assertTrue(result.getScore(Owner.PLAYER_1) > 0);
+	}
+	
+	@Test
+	public void test_simulate__invalid_action_loses() {
+		Bot invalidBot = state -> Arrays.asList(new Action(Type.DEPLOY, 0, 1));
+		SimulationResult result = new GameSimulator(League.LEAGUE_3).simulate(42, invalidBot, WAIT_BOT);
+		
+		assertEquals(Owner.PLAYER_2, result.getWinner());
+		assertEquals(-1, result.getScore(Owner.PLAYER_1));
+		assertEquals(1, result.getTurns());
+		assertTrue(result.getInvalidActionMessage(Owner.PLAYER_1).isPresent());
+		assertTrue(!result.getInvalidActionMessage(Owner.PLAYER_2).isPresent());
+	}
+	
+	@Test
+	public void test_simulate__same_seed_same_result() {
+		GameSimulator simulator = new GameSimulator(League.LEAGUE_3);
+		
+		for (long seed = 0; seed < 5; seed++) {
+			SimulationResult result1 = simulator.simulate(seed, AGGRESSIVE_BOT, WAIT_BOT);
+			SimulationResult result2 = simulator.simulate(seed, AGGRESSIVE_BOT, WAIT_BOT);
+			
+			assertEquals(result1.getWinner(), result2.getWinner());
+			assertEquals(result1.getTurns(), result2.getTurns());
+			assertEquals(result1.getScore(Owner.PLAYER_1), result2.getScore(Owner.PLAYER_1));
+			assertEquals(result1.getScore(Owner.PLAYER_2), result2.getScore(Owner.PLAYER_2));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.codingame.game.simulation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.Action;
+import com.codingame.game.Action.Type;
+import com.codingame.game.League;
+import com.codingame.game.core.TurnType;
+
+public class TournamentRunnerTest {
+	
+	@Test
+	public void test_parallel_tournament_same_as_serial() {
+		Map<String, Supplier<Bot>> bots = new LinkedHashMap<>();
+		bots.put("wait", () -> state -> Arrays.asList(new Action(Type.WAIT)));
+		bots.put("deploy", () -> state -> {
+			if (state.getTurnType() == TurnType.DEPLOY_TROOPS) {
+				for (int id = 0; id < state.getNumFieldIds(); id++) {
+					if (state.getOwner(id) == GameState.OWNER_PLAYER) {
+						return Arrays.asList(new Action(Type.DEPLOY, id, state.getDeployableTroops()));
+					}
+				}
+			}
+			return Arrays.asList(new Action(Type.WAIT));
+		});
+		
+		TournamentRunner serialRunner = new TournamentRunner(League.LEAGUE_3, bots);
+		serialRunner.setParallelism(1);
+		TournamentRunner parallelRunner = new TournamentRunner(League.LEAGUE_3, bots);
+		parallelRunner.setParallelism(4);
+		
+		TournamentResult serialResult = serialRunner.run(0, 10);
+		TournamentResult parallelResult = parallelRunner.run(0, 10);
+		
+		assertEquals(20, serialResult.getNumGames());
+		assertEquals(serialResult.getRankingTable(), parallelResult.getRankingTable());
+		assertEquals(serialResult.getWinRateTable(), parallelResult.getWinRateTable());
+	}
+}
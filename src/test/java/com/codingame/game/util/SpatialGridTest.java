@@ -0,0 +1,69 @@
+package com.codingame.game.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class SpatialGridTest {
+	
+	@Test
+	public void test_findNearestNeighbours_sameAsAllPairs() {
+		Random random = new Random(42);
+		int numPoints = 500;
+		double[] x = new double[numPoints];
+		double[] y = new double[numPoints];
+		for (int i = 0; i < numPoints; i++) {
+			x[i] = random.nextDouble() * 1000;
+			y[i] = random.nextDouble() * 500;
+		}
+		
+		SpatialGrid grid = new SpatialGrid(x, y, SpatialGrid.calculateCellSize(1000, 500, numPoints, 2));
+		
+		int k = 6;
+		int[] neighbours = new int[k];
+		double[] distances = new double[k];
+		for (int i = 0; i < numPoints; i++) {
+			final int index = i;
+			int[] expected = IntStream.range(0, numPoints) //
+					.filter(other -> other != index) //
+					.boxed() //
+					.sorted(Comparator.comparingDouble(other -> Math.hypot(x[other] - x[index], y[other] - y[index]))) //
+					.limit(k) //
+					.mapToInt(Integer::intValue) //
+					.toArray();
+			
+			assertEquals(k, grid.findNearestNeighbours(i, k, neighbours, distances));
+			assertArrayEquals(expected, neighbours);
+		}
+	}
+	
+	@Test
+	public void test_findNearest_withFilter() {
+		double[] x = {0, 1, 2, 100};
+		double[] y = {0, 0, 0, 100};
+		
+		SpatialGrid grid = new SpatialGrid(x, y, 1);
+		
+		assertEquals(0, grid.findNearest(0.2, 0, index -> true));
+		assertEquals(2, grid.findNearest(0.2, 0, index -> index >= 2));
+		assertEquals(3, grid.findNearest(0.2, 0, index -> index == 3));
+		assertEquals(-1, grid.findNearest(0.2, 0, index -> false));
+	}
+	
+	@Test
+	public void test_findNearestNeighbours_lessPointsThanNeighbours() {
+		SpatialGrid grid = new SpatialGrid(new double[] {0, 3}, new double[] {0, 4}, 1);
+		
+		int[] neighbours = new int[3];
+		double[] distances = new double[3];
+		
+		assertEquals(1, grid.findNearestNeighbours(0, 3, neighbours, distances));
+		assertEquals(1, neighbours[0]);
+		assertEquals(5, distances[0], 1e-9);
+	}
+}
@@ -0,0 +1,84 @@
+package com.codingame.game.view;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.util.Vector2D;
+
+public class ContourTracerTest {
+	
+	@Test
+	public void test_traceOutline_rectangle() {
+		int[] labels = {//
+				0, 0, 0, 0, //
+				0, 1, 1, 0, //
+				0, 1, 1, 0, //
+				0, 0, 0, 0};
+		ContourTracer tracer = new ContourTracer(labels, 4, 4);
+		
+		assertCorners(new int[][] {{1, 1}, {3, 1}, {3, 3}, {1, 3}}, tracer.traceOutline(5));
+		assertCorners(new int[][] {{0, 0}, {4, 0}, {4, 4}, {0, 4}}, tracer.traceOutline(0));
+	}
+	
+	@Test
+	public void test_traceOutline_lShape() {
+		int[] labels = {//
+				1, 0, 0, //
+				1, 0, 0, //
+				1, 1, 1};
+		ContourTracer tracer = new ContourTracer(labels, 3, 3);
+		
+		assertCorners(new int[][] {{0, 0}, {1, 0}, {1, 2}, {3, 2}, {3, 3}, {0, 3}}, tracer.traceOutline(0));
+		assertCorners(new int[][] {{1, 0}, {3, 0}, {3, 2}, {1, 2}}, tracer.traceOutline(1));
+	}
+	
+	@Test
+	public void test_traceOutline_diagonalCellsAreNotConnected() {
+		int[] labels = {//
+				1, 0, //
+				0, 1};
+		ContourTracer tracer = new ContourTracer(labels, 2, 2);
+		
+		assertCorners(new int[][] {{0, 0}, {1, 0}, {1, 1}, {0, 1}}, tracer.traceOutline(0));
+		assertCorners(new int[][] {{1, 0}, {2, 0}, {2, 1}, {1, 1}}, tracer.traceOutline(1));
+	}
+	
+	@Test
+	public void test_traceLargestOutline() {
+		int[] labels = {//
+				1, 0, 0, 0, 0, //
+				0, 0, 0, 0, 0, //
+				0, 0, 1, 0, 0, //
+				0, 0, 0, 0, 0, //
+				1, 1, 1, 1, 1};
+		ContourTracer tracer = new ContourTracer(labels, 5, 5);
+		
+		// the area of label 0 has a hole (that is not traced), and label 1 has three areas
+		assertCorners(new int[][] {{1, 0}, {5, 0}, {5, 4}, {0, 4}, {0, 1}, {1, 1}}, tracer.traceLargestOutline(new int[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11,
+				13, 14, 15, 16, 17, 18, 19}));
+		assertCorners(new int[][] {{0, 4}, {5, 4}, {5, 5}, {0, 5}}, tracer.traceLargestOutline(new int[] {0, 12, 20, 21, 22, 23, 24}));
+		assertEquals(0, tracer.traceLargestOutline(new int[0]).size());
+	}
+	
+	@Test
+	public void test_simplify() {
+		// a staircase from (0, 0) to (4, 4) and back on a straight line
+		List<Vector2D> staircase = Arrays.asList(new Vector2D(0, 0), new Vector2D(1, 0), new Vector2D(1, 1), new Vector2D(2, 1), new Vector2D(2, 2),
+				new Vector2D(3, 2), new Vector2D(3, 3), new Vector2D(4, 3), new Vector2D(4, 4), new Vector2D(0, 4));
+		
+		assertEquals(staircase, ContourTracer.simplify(staircase, 0));
+		assertEquals(Arrays.asList(new Vector2D(0, 0), new Vector2D(4, 4), new Vector2D(0, 4)), ContourTracer.simplify(staircase, 1));
+	}
+	
+	private void assertCorners(int[][] expected, List<int[]> corners) {
+		assertEquals(expected.length, corners.size());
+		for (int i = 0; i < expected.length; i++) {
+			assertArrayEquals(expected[i], corners.get(i));
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.codingame.game.view;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.util.Vector2D;
+
+public class JumpFloodVoronoiTest {
+	
+	private static final int NUM_CELLS_X = 580;
+	private static final int NUM_CELLS_Y = 430;
+	private static final int RESOLUTION = 2;
+	
+	@Test
+	public void test_nearestSites_manhattanNorm() {
+		assertNearestSites(1, 40, 42);
+	}
+	
+	@Test
+	public void test_nearestSites_euclideanNorm() {
+		assertNearestSites(2, 40, 43);
+	}
+	
+	@Test
+	public void test_nearestSites_manySites() {
+		assertNearestSites(1, 1000, 44);
+	}
+	
+	@Test
+	public void test_nearestSites_singleSiteOutsideOfGrid() {
+		JumpFloodVoronoi voronoi = new JumpFloodVoronoi(4, 3, 0, 0, 1, 2);
+		int[] nearestSites = voronoi.calculateNearestSites(new double[] {-10}, new double[] {100});
+		
+		assertArrayEquals(new int[12], nearestSites);
+	}
+	
+	private void assertNearestSites(int norm, int numSites, long seed) {
+		Random random = new Random(seed);
+		double[] siteX = new double[numSites];
+		double[] siteY = new double[numSites];
+		for (int i = 0; i < numSites; i++) {
+			siteX[i] = View.GAME_FIELD_X + random.nextDouble() * View.GAME_FIELD_WIDTH;
+			siteY[i] = View.GAME_FIELD_Y + random.nextDouble() * View.GAME_FIELD_HEIGHT;
+		}
+		
+		JumpFloodVoronoi voronoi = new JumpFloodVoronoi(NUM_CELLS_X, NUM_CELLS_Y, View.GAME_FIELD_X, View.GAME_FIELD_Y, RESOLUTION, norm);
+		int[] nearestSites = voronoi.calculateNearestSites(siteX, siteY);
+		
+		// compare the distance to the nearest site (like Region.distToPoint), because sites with equal distances may be chosen differently
+		int numErrors = 0;
+		for (int cellY = 0; cellY < NUM_CELLS_Y; cellY++) {
+			for (int cellX = 0; cellX < NUM_CELLS_X; cellX++) {
+				Vector2D position = new Vector2D(View.GAME_FIELD_X + cellX * RESOLUTION, View.GAME_FIELD_Y + cellY * RESOLUTION);
+				double minDistance = Double.POSITIVE_INFINITY;
+				for (int site = 0; site < numSites; site++) {
+					minDistance = Math.min(minDistance, new Vector2D(siteX[site], siteY[site]).sub(position).length(norm));
+				}
+				
+				int site = nearestSites[cellY * NUM_CELLS_X + cellX];
+				if (new Vector2D(siteX[site], siteY[site]).sub(position).length(norm) > minDistance + 1e-9) {
+					numErrors++;
+				}
+			}
+		}
+		assertEquals(0, numErrors);
+	}
+}
@@ -0,0 +1,51 @@
+package com.codingame.game.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.core.Field;
+import com.codingame.game.core.Region;
+import com.codingame.game.util.Vector2D;
+import com.codingame.game.view.RegionGrid.VoronoiMethod;
+
+public class RegionGridTest {
+	
+	@Test
+	public void test_createRegionOutlines() {
+		Field field1 = new Field(1);
+		Field field2 = new Field(2);
+		Field field3 = new Field(3);
+		Region left = new Region(1, new HashSet<Field>(Arrays.asList(field1)), 1);
+		Region right = new Region(2, new HashSet<Field>(Arrays.asList(field2, field3)), 1);
+		
+		Map<Field, Vector2D> fieldPositions = new HashMap<Field, Vector2D>();
+		fieldPositions.put(field1, new Vector2D(24.3, 50));
+		fieldPositions.put(field2, new Vector2D(74.3, 50));
+		fieldPositions.put(field3, new Vector2D(124.3, 50));
+		Set<Region> regions = new HashSet<Region>(Arrays.asList(left, right));
+		
+		for (VoronoiMethod method : VoronoiMethod.values()) {
+			RegionGrid grid = new RegionGrid(regions, fieldPositions);
+			grid.setWidth(100);
+			grid.setHeight(60);
+			grid.setY(20);
+			grid.setDistNorm(1);
+			grid.setVoronoiMethod(method);
+			Map<Region, List<Vector2D>> outlines = grid.createRegionOutlines();
+			
+			// the outlines run between the grid points (that are between x = 0 and 99 and between y = 20 and 79)
+			assertEquals(Arrays.asList(new Vector2D(-0.5, 19.5), new Vector2D(49.5, 19.5), new Vector2D(49.5, 79.5), new Vector2D(-0.5, 79.5)),
+					outlines.get(left));
+			assertEquals(Arrays.asList(new Vector2D(49.5, 19.5), new Vector2D(99.5, 19.5), new Vector2D(99.5, 79.5), new Vector2D(49.5, 79.5)),
+					outlines.get(right));
+		}
+	}
+}
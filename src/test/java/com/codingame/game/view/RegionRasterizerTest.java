@@ -0,0 +1,59 @@
+package com.codingame.game.view;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Test;
+
+public class RegionRasterizerTest {
+	
+	private static final int NUM_CELLS_X = 200;
+	private static final int NUM_CELLS_Y = 150;
+	private static final int NUM_REGIONS = 5;
+	
+	@Test
+	public void test_rasterize_sameAsJumpFlooding() {
+		Random random = new Random(42);
+		double[] siteX = new double[30];
+		double[] siteY = new double[30];
+		int[] siteRegions = new int[30];
+		for (int i = 0; i < siteX.length; i++) {
+			siteX[i] = random.nextDouble() * 2 * NUM_CELLS_X;
+			siteY[i] = random.nextDouble() * 2 * NUM_CELLS_Y;
+			siteRegions[i] = i % NUM_REGIONS;
+		}
+		
+		RegionRasterizer rasterizer = new RegionRasterizer(NUM_CELLS_X, NUM_CELLS_Y, 0, 0, 2, 1, NUM_REGIONS);
+		rasterizer.rasterize(siteX, siteY, siteRegions);
+		
+		int[] nearestSites = new JumpFloodVoronoi(NUM_CELLS_X, NUM_CELLS_Y, 0, 0, 2, 1).calculateNearestSites(siteX, siteY);
+		int[] expectedLabels = new int[nearestSites.length];
+		for (int cell = 0; cell < nearestSites.length; cell++) {
+			expectedLabels[cell] = siteRegions[nearestSites[cell]];
+		}
+		assertArrayEquals(expectedLabels, rasterizer.getLabels());
+		
+		RegionRasterizer boundaryCollector = new RegionRasterizer(NUM_CELLS_X, NUM_CELLS_Y, 0, 0, 2, 1, NUM_REGIONS);
+		boundaryCollector.collectBoundaryCells(expectedLabels);
+		for (int region = 0; region < NUM_REGIONS; region++) {
+			assertArrayEquals(getBoundaryCells(expectedLabels, region), rasterizer.getBoundaryCells(region));
+			assertArrayEquals(getBoundaryCells(expectedLabels, region), boundaryCollector.getBoundaryCells(region));
+		}
+	}
+	
+	private int[] getBoundaryCells(int[] labels, int region) {
+		return IntStream.range(0, labels.length).filter(cell -> labels[cell] == region && isBoundaryCell(labels, cell)).toArray();
+	}
+	
+	private boolean isBoundaryCell(int[] labels, int cell) {
+		int cellX = cell % NUM_CELLS_X;
+		int cellY = cell / NUM_CELLS_X;
+		if (cellX == 0 || cellY == 0 || cellX == NUM_CELLS_X - 1 || cellY == NUM_CELLS_Y - 1) {
+			return true;
+		}
+		return labels[cell - 1] != labels[cell] || labels[cell + 1] != labels[cell] || labels[cell - NUM_CELLS_X] != labels[cell]
+				|| labels[cell + NUM_CELLS_X] != labels[cell];
+	}
+}
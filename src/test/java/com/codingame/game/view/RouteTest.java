@@ -0,0 +1,40 @@
+package com.codingame.game.view;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.util.Vector2D;
+
+public class RouteTest {
+	
+	@Test
+	public void test_estimatePosition_onePart() {
+		Route route = new Route(new Vector2D(0, 0), new Vector2D(100, 50));
+		
+		assertEquals(new Vector2D(0, 0), route.estimatePosition(0));
+		assertEquals(new Vector2D(40, 20), route.estimatePosition(0.4));
+		assertEquals(new Vector2D(100, 50), route.estimatePosition(1));
+	}
+	
+	@Test
+	public void test_estimatePosition_twoParts() {
+		// a warp from (100, 0) to (0, 0), so both parts have a length of 50
+		Route route = new Route(new Vector2D(50, 0), new Vector2D(100, 0), new Vector2D(0, 0), new Vector2D(50, 0));
+		
+		assertEquals(new Vector2D(90, 0), route.estimatePosition(0.4));
+		assertEquals(new Vector2D(20, 0), route.estimatePosition(0.7));
+	}
+	
+	@Test
+	public void test_estimatePosition_withoutNewVector() {
+		Route route = new Route(new Vector2D(10, 10), new Vector2D(100, 10), new Vector2D(0, 30), new Vector2D(30, 70));
+		Vector2D result = new Vector2D();
+		
+		for (double relPosition = -0.1; relPosition <= 1.1; relPosition += 0.05) {
+			assertSame(result, route.estimatePosition(relPosition, result));
+			assertEquals(route.estimatePosition(relPosition), result);
+		}
+	}
+}
@@ -8,6 +8,7 @@ import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import com.codingame.game.build.RandomUtil;
 import com.codingame.game.util.Vector2D;
 
 public class ClusterAnalyzerTest {
@@ -59,6 +60,40 @@ public class ClusterAnalyzerTest {
 		assertEquals(10, clusters.get(3).entries.size());
 	}
 	
+	@Test
+	public void test_k_means_plus_plus_four_clusters() {
+		List<PositionedObject> positions = createClusters(4, 10);
+		List<Cluster<PositionedObject>> clusters = ClusterAnalyzer.getClusters(positions, 4, new RandomUtil(42));
+		
+		assertEquals(4, clusters.size());
+		for (Cluster<PositionedObject> cluster : clusters) {
+			assertEquals(10, cluster.entries.size());
+		}
+	}
+	
+	@Test
+	public void test_x_means_plus_plus_four_clusters() {
+		List<PositionedObject> positions = createClusters(4, 10);
+		List<Cluster<PositionedObject>> clusters = ClusterAnalyzer.getClusters(positions, 2, 5, 10, new RandomUtil(42));
+		
+		assertEquals(4, clusters.size());
+		for (Cluster<PositionedObject> cluster : clusters) {
+			assertEquals(10, cluster.entries.size());
+		}
+	}
+	
+	@Test
+	public void test_k_means_plus_plus_parallel_assignment() {
+		int pointsPerCluster = ClusterAnalyzer.PARALLEL_ASSIGNMENT_MIN_POINTS / 3 + 1;
+		List<PositionedObject> positions = createClusters(4, pointsPerCluster);
+		List<Cluster<PositionedObject>> clusters = ClusterAnalyzer.getClusters(positions, 4, new RandomUtil(42));
+		
+		assertEquals(4, clusters.size());
+		for (Cluster<PositionedObject> cluster : clusters) {
+			assertEquals(pointsPerCluster, cluster.entries.size());
+		}
+	}
+	
 	public List<PositionedObject> createClusters(int clusters, int pointsPerCluster) {
 		List<PositionedObject> positions = new ArrayList<>(clusters * pointsPerCluster);
 		
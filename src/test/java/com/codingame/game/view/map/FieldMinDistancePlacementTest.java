@@ -3,6 +3,8 @@ package com.codingame.game.view.map;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Random;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -82,4 +84,41 @@ class FieldMinDistancePlacementTest {
 		
 		assertTrue(field1.pos().y <= FieldMinDistancePlacement.FIELD_Y_MAX + 0.1f);
 	}
+	
+	@Test
+	public void test_minDistanceReached_manyFields() {
+		Random random = new Random(42);
+		Set<PositionedField> fields = new LinkedHashSet<>();
+		for (int i = 0; i < 30; i++) {
+			fields.add(new PositionedField(new Field(i), new Vector2D(FieldMinDistancePlacement.FIELD_X_MIN + random.nextDouble() * 800,
+					FieldMinDistancePlacement.FIELD_Y_MIN + random.nextDouble() * 600)));
+		}
+		
+		FieldMinDistancePlacement.positionFields(fields);
+		
+		for (PositionedField field : fields) {
+			for (PositionedField other : fields) {
+				if (field != other) {
+					assertTrue(field.pos().distance(other.pos()) >= FieldMinDistancePlacement.MIN_DISTANCE_BETWEEN_FIELDS - 0.1f);
+				}
+			}
+		}
+	}
+	
+	@Test
+	public void test_terminatesIfFieldsDontFitIntoBounds() {
+		Random random = new Random(42);
+		Set<PositionedField> fields = new LinkedHashSet<>();
+		for (int i = 0; i < 500; i++) {
+			fields.add(new PositionedField(new Field(i), new Vector2D(FieldMinDistancePlacement.FIELD_X_MIN + random.nextDouble() * 800,
+					FieldMinDistancePlacement.FIELD_Y_MIN + random.nextDouble() * 600)));
+		}
+		
+		FieldMinDistancePlacement.positionFields(fields);
+		
+		for (PositionedField field : fields) {
+			assertTrue(!(field.pos().x < FieldMinDistancePlacement.FIELD_X_MIN - 0.1f || field.pos().x > FieldMinDistancePlacement.FIELD_X_MAX + 0.1f));
+			assertTrue(!(field.pos().y < FieldMinDistancePlacement.FIELD_Y_MIN - 0.1f || field.pos().y > FieldMinDistancePlacement.FIELD_Y_MAX + 0.1f));
+		}
+	}
 }
@@ -0,0 +1,126 @@
+package com.codingame.game.view.map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.codingame.game.build.MapGenerator;
+import com.codingame.game.build.RandomUtil;
+import com.codingame.game.core.Field;
+import com.codingame.game.core.GameMap;
+import com.codingame.game.util.Pair;
+import com.codingame.game.util.Vector2D;
+import com.codingame.game.view.MapGraph;
+import com.codingame.game.view.PositionedField;
+import com.codingame.game.view.map.GraphPlacement.Variant;
+
+public class GraphPlacementTest {
+	
+	@Test
+	public void test_barnesHut_exactWithThetaZero() {
+		Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(42));
+		
+		Map<Field, Vector2D> springEmbedder = positionFields(generatedMap, Variant.SPRING_EMBEDDER, 0f, 1);
+		Map<Field, Vector2D> barnesHut = positionFields(generatedMap, Variant.SPRING_EMBEDDER_BARNES_HUT, 0f, 1);
+		
+		for (Field field : springEmbedder.keySet()) {
+			assertTrue(springEmbedder.get(field).distance(barnesHut.get(field)) < 1e-6);
+		}
+	}
+	
+	@Test
+	public void test_barnesHut_approximation() {
+		Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(42), 400, 400);
+		
+		Map<Field, Vector2D> springEmbedder = positionFields(generatedMap, Variant.SPRING_EMBEDDER, 0f, 1);
+		Map<Field, Vector2D> barnesHut = positionFields(generatedMap, Variant.SPRING_EMBEDDER_BARNES_HUT, 0.5f, 1);
+		
+		double maxDisplacement = 0;
+		double maxError = 0;
+		for (Entry<Field, Vector2D> entry : generatedMap.getValue().entrySet()) {
+			Vector2D expected = springEmbedder.get(entry.getKey());
+			maxDisplacement = Math.max(maxDisplacement, expected.distance(entry.getValue()));
+			maxError = Math.max(maxError, expected.distance(barnesHut.get(entry.getKey())));
+		}
+		
+		assertTrue(maxError < 0.1 * maxDisplacement);
+	}
+	
+	@Test
+	public void test_barnesHut_fieldsStayInBounds() {
+		Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(7), 1000, 1000);
+		
+		Map<Field, Vector2D> positions = positionFields(generatedMap, Variant.SPRING_EMBEDDER_BARNES_HUT, 0.5f, 20);
+		
+		assertEquals(generatedMap.getKey().fields.size(), positions.size());
+		for (Vector2D position : positions.values()) {
+			assertTrue(position.x >= 0 && position.x <= 1000 && position.y >= 0 && position.y <= 800);
+		}
+	}
+	
+	@Test
+	public void test_convergence_stopsEarly() {
+		Pair<GameMap, Map<Field, Vector2D>> generatedMap = MapGenerator.generateMap(new RandomUtil(42));
+		
+		GraphPlacement<PositionedField> graphPlacement = createGraphPlacement(generatedMap, Variant.SPRING_EMBEDDER, 100);
+		graphPlacement.setDeltaCooldown(0.95f);
+		graphPlacement.setTraceEnergy(true);
+		graphPlacement.positionFields();
+		
+		assertEquals(100, graphPlacement.getExecutedIterations());
+		assertEquals(100, graphPlacement.getEnergyTrace().length);
+		
+		graphPlacement = createGraphPlacement(generatedMap, Variant.SPRING_EMBEDDER, 100);
+		graphPlacement.setDeltaCooldown(0.95f);
+		graphPlacement.setTraceEnergy(true);
+		graphPlacement.setConvergenceThreshold(0.01f);
+		graphPlacement.positionFields();
+		
+		assertTrue(graphPlacement.getExecutedIterations() < 100);
+		assertEquals(graphPlacement.getExecutedIterations(), graphPlacement.getEnergyTrace().length);
+	}
+	
+	@Test
+	public void test_energyTrace_notRecordedByDefault() {
+		GraphPlacement<PositionedField> graphPlacement = createGraphPlacement(MapGenerator.generateMap(new RandomUtil(42)), Variant.SPRING_EMBEDDER, 5);
+		graphPlacement.positionFields();
+		
+		assertEquals(5, graphPlacement.getExecutedIterations());
+		assertEquals(0, graphPlacement.getEnergyTrace().length);
+	}
+	
+	private Map<Field, Vector2D> positionFields(Pair<GameMap, Map<Field, Vector2D>> generatedMap, Variant variant, float theta, int iterations) {
+		GraphPlacement<PositionedField> graphPlacement = createGraphPlacement(generatedMap, variant, iterations);
+		graphPlacement.setBarnesHutTheta(theta);
+		
+		Set<PositionedField> positionedFields = graphPlacement.positionFields();
+		Map<Field, Vector2D> positions = new HashMap<>();
+		for (PositionedField positionedField : positionedFields) {
+			positions.put(positionedField.getField(), positionedField.pos());
+		}
+		return positions;
+	}
+	
+	private GraphPlacement<PositionedField> createGraphPlacement(Pair<GameMap, Map<Field, Vector2D>> generatedMap, Variant variant, int iterations) {
+		// copy the positions, because the placement changes them
+		Map<Field, Vector2D> initialPositions = new HashMap<>();
+		generatedMap.getValue().forEach((field, position) -> initialPositions.put(field, position.clone()));
+		
+		GraphPlacement<PositionedField> graphPlacement = new GraphPlacement<>(new MapGraph(generatedMap.getKey(), initialPositions));
+		graphPlacement.setVariant(variant);
+		graphPlacement.setBounds(0, 0, 1000, 800);
+		graphPlacement.setIterations(iterations);
+		graphPlacement.setIdealSpringLength(350);
+		graphPlacement.setIdealClusterDistance(300);
+		graphPlacement.setRepulsiveForce(500f);
+		graphPlacement.setSpringForce(50f);
+		graphPlacement.setClusterForce(50f);
+		return graphPlacement;
+	}
+}